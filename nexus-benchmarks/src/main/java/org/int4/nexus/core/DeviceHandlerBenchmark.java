@@ -0,0 +1,58 @@
+package org.int4.nexus.core;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeviceHandlerBenchmark {
+  private static final int ACTIONS = 1024;
+  private static final int MASK = ACTIONS - 1;
+
+  @Param({"10", "100", "1000"})
+  public int devices;
+
+  private final Action[] actions = new Action[ACTIONS];
+
+  private DeviceHandler handler;
+  private int index;
+
+  @Setup
+  public void setup() {
+    Configuration config = SyntheticConfiguration.create(devices, 1);
+    SplittableRandom random = new SplittableRandom(42);
+
+    handler = new DeviceHandler(config.devices());
+
+    for(int i = 0; i < ACTIONS; i++) {
+      actions[i] = new Action("device:" + SyntheticConfiguration.deviceId(random.nextInt(devices)) + ":VOL_UP");
+    }
+  }
+
+  @Benchmark
+  public Optional<Action> handle() {
+    return handler.handle(actions[next()]);
+  }
+
+  private int next() {
+    return index = (index + 1) & MASK;
+  }
+}
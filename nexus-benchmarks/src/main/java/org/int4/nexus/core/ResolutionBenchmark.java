@@ -0,0 +1,114 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.trace.Trace;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResolutionBenchmark {
+  private static final int MASK = SyntheticConfiguration.INPUTS - 1;
+
+  @Param({"10", "100", "1000"})
+  public int devices;
+
+  @Param({"1", "4", "16"})
+  public int depth;
+
+  public long submitted;  // public so the handler can't be eliminated
+
+  private final URI[] inputs = new URI[SyntheticConfiguration.INPUTS];
+  private final long[] keys = new long[SyntheticConfiguration.INPUTS];
+  private final Action[] actions = new Action[SyntheticConfiguration.INPUTS];
+
+  private Logger logger;  // strong reference, as the level is lost when the logger is collected
+  private ScheduledExecutorService scheduler;
+  private InputHandler inputHandler;
+  private int index;
+
+  @Setup
+  public void setup() {
+    Configuration config = SyntheticConfiguration.create(devices, depth);
+    TerminalActionHandler httpHandler = action -> submitted++;
+
+    logger = Logger.getLogger("org.int4.nexus");
+    logger.setLevel(java.util.logging.Level.WARNING);  // logging the hops would measure the console
+    scheduler = Executors.newSingleThreadScheduledExecutor();
+    inputHandler = new InputHandler(Runnable::run, new InlineLaneExecutor(), new DelayScheduler(scheduler), null);
+    inputHandler.reconfigure(
+      config,
+      SyntheticConfiguration.handlers(config, httpHandler),
+      Map.of(SyntheticConfiguration.CODEC.scheme(), SyntheticConfiguration.CODEC)
+    );
+
+    for(int n = 0; n < SyntheticConfiguration.INPUTS; n++) {
+      inputs[n] = SyntheticConfiguration.input(n);
+      keys[n] = SyntheticConfiguration.CODEC.encode(inputs[n])[0];
+      actions[n] = SyntheticConfiguration.chainStart(n % devices, depth);
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    scheduler.shutdownNow();
+  }
+
+  @Benchmark
+  public void processInput() {
+    inputHandler.process(inputs[next()], Trace.NONE);
+  }
+
+  @Benchmark
+  public void processKey() {
+    inputHandler.process(keys[next()], Trace.NONE);
+  }
+
+  @Benchmark
+  public CompletableFuture<Void> executeAction() {
+    return inputHandler.executeAction(actions[next()], Trace.NONE);
+  }
+
+  private int next() {
+    return index = (index + 1) & MASK;
+  }
+
+  // Submits on the benchmark thread, so only the resolution is measured:
+  private static class InlineLaneExecutor extends LaneExecutor {
+    @Override
+    CompletableFuture<Void> submit(String target, Trace trace, LongSupplier admission, Supplier<CompletableFuture<Void>> task) {
+      return task.get();
+    }
+
+    @Override
+    CompletableFuture<Void> submitCoalescable(String target, Object key, Trace trace, LongSupplier admission, IntFunction<CompletableFuture<Void>> task) {
+      return task.apply(1);
+    }
+  }
+}
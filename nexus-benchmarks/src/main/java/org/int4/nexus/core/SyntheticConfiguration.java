@@ -0,0 +1,121 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.TerminalActionHandler;
+
+class SyntheticConfiguration {
+  static final int INPUTS = 1024;
+  static final InputCodec CODEC = new BenchCodec();
+
+  private static final List<String> KEYS = List.of(
+    "POWER", "POWER_ON", "POWER_OFF", "VOL_UP", "VOL_DOWN", "MUTE", "UP", "DOWN", "LEFT", "RIGHT",
+    "OK", "BACK", "HOME", "MENU", "INFO", "PLAY", "PAUSE", "STOP", "NEXT", "PREVIOUS"
+  );
+
+  private static final Template IRSEND = new Template(
+    "<protocol>:<bits>:<data>:<repeat>",
+    "http://192.168.3.18/cm",
+    "GET",
+    null,
+    Map.of("cmnd", "IRSend {\"Protocol\":\"<protocol>\",\"Bits\":<bits>,\"Data\":\"0x<data>\",\"Repeat\":<repeat>}")
+  );
+
+  private static final Template MEDIASYSTEM = new Template(
+    "<key>",
+    "http://192.168.3.17:8040/executeCommand",
+    "POST",
+    "<key>",
+    null
+  );
+
+  static Configuration create(int deviceCount, int depth) {
+    List<Device> devices = new ArrayList<>();
+    Map<URI, Action> inputMappings = new LinkedHashMap<>();
+
+    for(int i = 0; i < deviceCount; i++) {
+      Map<String, Action> mappings = new HashMap<>();
+      String next = deviceId((i + 1) % deviceCount);
+
+      for(int k = 0; k < KEYS.size(); k++) {
+        mappings.put(KEYS.get(k), new Action("irsend:NEC:32:%08X:0".formatted(i * KEYS.size() + k)));
+      }
+
+      mappings.put("hop-1", new Action("irsend:NEC:32:%08X:1".formatted(i)));
+
+      for(int h = 2; h <= depth; h++) {
+        mappings.put("hop-" + h, new Action("device:" + next + ":hop-" + (h - 1)));
+      }
+
+      Action power = new Action("device:" + deviceId(i) + ":POWER");
+
+      devices.add(new Device(deviceId(i), List.of(power), List.of(power), mappings, List.of(), Map.of()));
+    }
+
+    for(int n = 0; n < INPUTS; n++) {
+      inputMappings.put(input(n), chainStart(n % deviceCount, depth));
+    }
+
+    return new Configuration(
+      Map.of(),
+      Map.of(),
+      devices,
+      inputMappings,
+      List.of(),
+      Map.of("irsend", IRSEND, "mediasystem", MEDIASYSTEM),
+      List.of()
+    );
+  }
+
+  static Map<String, ActionHandler> handlers(Configuration config, TerminalActionHandler httpHandler) {
+    Map<String, ActionHandler> handlers = new HashMap<>();
+
+    config.templates().forEach((id, template) -> handlers.put(id, new TemplateHandler(template)));
+    handlers.put("device", new DeviceHandler(config.devices()));
+    handlers.put("http", httpHandler);
+
+    return handlers;
+  }
+
+  static String deviceId(int index) {
+    return "device-" + index;
+  }
+
+  static URI input(int n) {
+    return URI.create("bench:key-" + n);
+  }
+
+  static Action chainStart(int device, int depth) {
+    return new Action("device:" + deviceId(device) + ":hop-" + depth);
+  }
+
+  // Encodes the synthetic inputs as their number, so they can also be processed as keys:
+  private static class BenchCodec implements InputCodec {
+    private static final String PREFIX = "key-";
+
+    @Override
+    public String scheme() {
+      return "bench";
+    }
+
+    @Override
+    public long[] encode(URI input) {
+      String ssp = input.getSchemeSpecificPart();
+
+      return ssp.startsWith(PREFIX) ? new long[] {Long.parseLong(ssp.substring(PREFIX.length()))} : new long[0];
+    }
+
+    @Override
+    public URI decode(long key) {
+      return input((int)key);
+    }
+  }
+}
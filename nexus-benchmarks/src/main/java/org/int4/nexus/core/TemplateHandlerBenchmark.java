@@ -0,0 +1,79 @@
+package org.int4.nexus.core;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TemplateHandlerBenchmark {
+  private static final int ACTIONS = 1024;
+  private static final int MASK = ACTIONS - 1;
+  private static final int UNCACHED_ACTIONS = 4096;  // larger than the cache of the handler
+
+  private final Action[] irsendActions = new Action[ACTIONS];
+  private final Action[] mediasystemActions = new Action[ACTIONS];
+  private final Action[] uncachedActions = new Action[UNCACHED_ACTIONS];
+
+  private TemplateHandler irsendHandler;
+  private TemplateHandler mediasystemHandler;
+  private TemplateHandler uncachedHandler;
+  private int index;
+  private int uncachedIndex;
+
+  @Setup
+  public void setup() {
+    Configuration config = SyntheticConfiguration.create(1, 1);
+    SplittableRandom random = new SplittableRandom(42);
+
+    irsendHandler = new TemplateHandler(config.templates().get("irsend"));
+    mediasystemHandler = new TemplateHandler(config.templates().get("mediasystem"));
+    uncachedHandler = new TemplateHandler(config.templates().get("irsend"));
+
+    for(int i = 0; i < ACTIONS; i++) {
+      irsendActions[i] = new Action("irsend:NEC:32:%08X:0".formatted(random.nextInt()));
+      mediasystemActions[i] = new Action("mediasystem:KEY_" + i);
+    }
+
+    for(int i = 0; i < UNCACHED_ACTIONS; i++) {
+      uncachedActions[i] = new Action("irsend:NEC:32:%08X:0".formatted(i));
+    }
+  }
+
+  @Benchmark
+  public Optional<Action> irsend() {
+    return irsendHandler.handle(irsendActions[next()]);
+  }
+
+  @Benchmark
+  public Optional<Action> mediasystem() {
+    return mediasystemHandler.handle(mediasystemActions[next()]);
+  }
+
+  @Benchmark
+  public Optional<Action> irsendExpansion() {
+    uncachedIndex = (uncachedIndex + 1) % UNCACHED_ACTIONS;
+
+    return uncachedHandler.handle(uncachedActions[uncachedIndex]);
+  }
+
+  private int next() {
+    return index = (index + 1) & MASK;
+  }
+}
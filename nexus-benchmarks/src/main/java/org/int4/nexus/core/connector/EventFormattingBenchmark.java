@@ -0,0 +1,81 @@
+package org.int4.nexus.core.connector;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventFormattingBenchmark {
+  private static final short EV_SYN = 0x00;
+  private static final short EV_KEY = 0x01;
+  private static final short EV_MSC = 0x04;
+  private static final short KEY_LEFTSHIFT = 42;
+  private static final short KEY_A = 30;
+  private static final short MSC_SCAN = 0x04;
+
+  public long checksum;  // public so the sinks can't be eliminated
+
+  private InputDeviceConnector.EventHandler keyHandler;
+  private InputDeviceConnector.EventHandler uriHandler;
+
+  @Setup
+  public void setup() {
+    keyHandler = new InputDeviceConnector.EventHandler(-1, new InputSink() {
+      @Override
+      public void accept(URI input) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void acceptKeys(long[] keys, int count, InputCodec codec) {
+        for(int i = 0; i < count; i++) {
+          checksum += keys[i];
+        }
+      }
+    }, "bench-keys", "bench-keys");
+
+    uriHandler = new InputDeviceConnector.EventHandler(-1, input -> checksum += input.hashCode(), "bench-uris", "bench-uris");
+
+    keyHandler.processEvent(EV_KEY, KEY_LEFTSHIFT, 1);  // keeps shift held, so keys include a modifier
+    uriHandler.processEvent(EV_KEY, KEY_LEFTSHIFT, 1);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(6)
+  public void deliverKeys() {
+    deliver(keyHandler);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(6)
+  public void deliverUris() {
+    deliver(uriHandler);
+  }
+
+  private static void deliver(InputDeviceConnector.EventHandler handler) {
+    handler.processEvent(EV_MSC, MSC_SCAN, 0x70004);
+    handler.processEvent(EV_KEY, KEY_A, 1);
+    handler.processEvent(EV_SYN, (short)0, 0);
+    handler.processEvent(EV_MSC, MSC_SCAN, 0x70004);
+    handler.processEvent(EV_KEY, KEY_A, 0);
+    handler.processEvent(EV_SYN, (short)0, 0);
+  }
+}
@@ -0,0 +1,88 @@
+package org.int4.nexus.core.connector;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HciParseBenchmark {
+  private static final String[] CAPTURE = {
+    "02 01 2E 0B 00 07 00 04 00 1B 1F 00 41 00 00 00",
+    "02 01 2E 0B 00 07 00 04 00 1B 1F 00 00 00 00 00",
+    "02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 1E 00 00 00 00 00",
+    "02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 00 00 00 00 00 00",
+    "02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 1F 00 00 00 00 00",
+    "02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 00 00 00 00 00 00",
+    "02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 20 00 00 00 00 00",
+    "02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 00 00 00 00 00 00"
+  };
+
+  private static final int REPEATS = 1000;
+  private static final int PACKETS = 8 * REPEATS;  // constant for use in annotations, 8 being the length of the capture
+
+  private HciDumpConnector.EventHandler handler;
+  private byte[] text;
+  private byte[] btsnoop;
+
+  @Setup
+  public void setup() {
+    ByteArrayOutputStream textStream = new ByteArrayOutputStream();
+    ByteBuffer btsnoopBuffer = ByteBuffer.allocate(16 + PACKETS * (24 + 20));
+
+    btsnoopBuffer.put("btsnoop\0".getBytes(StandardCharsets.US_ASCII)).putInt(1).putInt(1002);  // version 1, H4 datalink
+
+    for(int i = 0; i < REPEATS; i++) {
+      for(String line : CAPTURE) {
+        byte[] packet = HexFormat.ofDelimiter(" ").parseHex(line);
+
+        textStream.writeBytes(("> " + line + "\n").getBytes(StandardCharsets.US_ASCII));
+        btsnoopBuffer
+          .putInt(packet.length)  // original length
+          .putInt(packet.length)  // included length
+          .putInt(1)  // flags: received data
+          .putInt(0)  // drops
+          .putLong(0x00E03AB44A676000L + i * 1000L)  // timestamp in micros
+          .put(packet);
+      }
+    }
+
+    text = textStream.toByteArray();
+    btsnoop = new byte[btsnoopBuffer.position()];
+    btsnoopBuffer.flip().get(btsnoop);
+    handler = new HciDumpConnector.EventHandler(uri -> {}, new KeyTimer("benchmark-key-timer"));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PACKETS)
+  public void parseText() throws IOException {
+    handler.readText(new ByteArrayInputStream(text));
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(PACKETS)
+  public void parseBtsnoop() throws IOException, InterruptedException {
+    handler.readBtsnoop(Channels.newChannel(new ByteArrayInputStream(btsnoop)), false);
+  }
+}
@@ -0,0 +1,158 @@
+package org.int4.nexus.core.connector;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-native-access=ALL-UNNAMED")
+public class InputDeviceReadBenchmark {
+  private static final Linker LINKER = Linker.nativeLinker();
+  private static final MethodHandle PIPE = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("pipe").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+  );
+  private static final MethodHandle WRITE = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("write").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG)
+  );
+  private static final MethodHandle CLOSE = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("close").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT)
+  );
+
+  // A burst of mouse movement followed by a key press and release, each with an MSC_SCAN event, like a typical remote:
+  private static final short[][] EVENTS = {
+    {2, 0, 3}, {2, 1, -2}, {0, 0, 0},
+    {2, 0, 1}, {2, 1, -1}, {0, 0, 0},
+    {2, 0, 2}, {2, 1, 0}, {0, 0, 0},
+    {4, 4, 0x1e}, {1, 115, 1}, {0, 0, 0},
+    {4, 4, 0x1e}, {1, 115, 0}, {0, 0, 0}
+  };
+
+  @Param({"1", "64"})
+  public int batchEvents;  // 1 reads each event with its own read call
+
+  private Arena arena;
+  private MemorySegment buffer;
+  private InputDeviceConnector.EventHandler handler;
+  private Thread writer;
+  private int readFd;
+  private int writeFd;
+  private volatile boolean stopped;
+
+  public URI lastInput;  // public so stores to these can't be eliminated
+  public long lastKey;
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Counters {
+    public long events;
+    public long reads;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      events = 0;
+      reads = 0;
+    }
+  }
+
+  @Setup
+  public void setup() throws Throwable {
+    arena = Arena.ofShared();
+
+    MemorySegment fds = arena.allocate(ValueLayout.JAVA_INT, 2);
+
+    if((int)PIPE.invoke(fds) != 0) {
+      throw new IllegalStateException("Unable to create pipe");
+    }
+
+    readFd = fds.getAtIndex(ValueLayout.JAVA_INT, 0);
+    writeFd = fds.getAtIndex(ValueLayout.JAVA_INT, 1);
+    buffer = arena.allocate(batchEvents * InputDeviceConnector.INPUT_EVENT_SIZE);
+    handler = new InputDeviceConnector.EventHandler(readFd, new InputSink() {
+      @Override
+      public void accept(URI uri) {
+        lastInput = uri;
+      }
+
+      @Override
+      public void acceptKeys(long[] keys, int count, InputCodec codec) {
+        lastKey = keys[count - 1];
+      }
+    }, "rc2", "benchmark");
+
+    MemorySegment events = arena.allocate(EVENTS.length * InputDeviceConnector.INPUT_EVENT_SIZE);
+
+    for(int i = 0; i < EVENTS.length; i++) {
+      long offset = i * InputDeviceConnector.INPUT_EVENT_SIZE;
+
+      events.set(ValueLayout.JAVA_SHORT, offset + 16, EVENTS[i][0]);
+      events.set(ValueLayout.JAVA_SHORT, offset + 18, EVENTS[i][1]);
+      events.set(ValueLayout.JAVA_INT, offset + 20, EVENTS[i][2]);
+    }
+
+    writer = Thread.ofPlatform().daemon().name("pipe-writer").start(() -> {
+      try {
+        while(!stopped && (long)WRITE.invoke(writeFd, events, events.byteSize()) > 0) {
+          // keep the pipe filled
+        }
+
+        CLOSE.invoke(writeFd);  // reader sees EOF
+      }
+      catch(Throwable t) {
+        throw new IllegalStateException(t);
+      }
+    });
+  }
+
+  @TearDown
+  public void tearDown() throws Throwable {
+    stopped = true;
+
+    while(handler.readBatch(buffer) > 0 || writer.isAlive()) {
+      // drain, so the writer can end; reads return nothing once it closed the pipe
+    }
+
+    writer.join();
+
+    CLOSE.invoke(readFd);
+    arena.close();
+  }
+
+  @Benchmark
+  public int readBatch(Counters counters) throws Throwable {
+    int count = handler.readBatch(buffer);
+
+    counters.reads++;
+    counters.events += count;
+
+    return count;
+  }
+}
@@ -0,0 +1,145 @@
+package org.int4.nexus.core.connector;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class KeyTimerJitterBenchmark {
+  private static final HciDumpConnector.PressedKey KEY = HciDumpConnector.PressedKey.of((short)0x001f, new byte[] {0x44, 0, 0, 0});
+
+  @Param({"0", "4"})
+  public int loadThreads;
+
+  private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+  private final List<Thread> threads = new ArrayList<>();
+
+  private KeyTimer timer;
+  private HciDumpConnector.EventHandler handler;
+  private volatile boolean stopped;
+
+  public long checksum;  // public so the load can't be eliminated
+
+  private record Event(String state, long nanos) {}
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long heldEvents;
+    public long heldLatenessMicros;
+    public long heldMaxLatenessMicros;
+    public long longPressEvents;
+    public long longPressLatenessMicros;
+    public long longPressMaxLatenessMicros;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      heldEvents = 0;
+      heldLatenessMicros = 0;
+      heldMaxLatenessMicros = 0;
+      longPressEvents = 0;
+      longPressLatenessMicros = 0;
+      longPressMaxLatenessMicros = 0;
+    }
+  }
+
+  @Setup
+  public void setup() {
+    timer = new KeyTimer("benchmark-key-timer");
+    handler = new HciDumpConnector.EventHandler(this::record, timer);
+
+    for(int i = 0; i < loadThreads; i++) {
+      threads.add(Thread.ofPlatform().daemon().name("load-" + i).start(this::load));
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    stopped = true;
+
+    for(Thread thread : threads) {
+      thread.join();
+    }
+  }
+
+  @Benchmark
+  public void holdUntilLongPress(Counters counters) throws InterruptedException {
+    long pressNanos = System.nanoTime();
+    int repeats = 0;
+
+    handler.triggerRepeatAndLongPressHandler(KEY);
+
+    for(;;) {
+      Event event = events.poll(5, TimeUnit.SECONDS);
+
+      if(event == null) {
+        throw new IllegalStateException("No long press within 5 seconds");
+      }
+
+      if(event.state.equals("held")) {
+        long intended = pressNanos + 500_000_000L + repeats++ * 50_000_000L;
+        long latenessMicros = (event.nanos - intended) / 1000;
+
+        counters.heldEvents++;
+        counters.heldLatenessMicros += latenessMicros;
+        counters.heldMaxLatenessMicros = Math.max(counters.heldMaxLatenessMicros, latenessMicros);
+      }
+      else if(event.state.equals("long-pressed")) {
+        long latenessMicros = (event.nanos - pressNanos - 1_000_000_000L) / 1000;
+
+        counters.longPressEvents++;
+        counters.longPressLatenessMicros += latenessMicros;
+        counters.longPressMaxLatenessMicros = Math.max(counters.longPressMaxLatenessMicros, latenessMicros);
+
+        break;
+      }
+    }
+
+    handler.clearKeyPress();
+    events.clear();
+  }
+
+  private void record(URI uri) {
+    long nanos = System.nanoTime();
+    String input = uri.getSchemeSpecificPart();
+
+    events.add(new Event(input.substring(input.lastIndexOf(':') + 1), nanos));
+  }
+
+  private void load() {
+    long sum = 0;
+
+    while(!stopped) {
+      byte[] garbage = new byte[1024];
+
+      for(int i = 0; i < garbage.length; i++) {
+        sum += (garbage[i] = (byte)(sum * 31 + i));
+      }
+    }
+
+    checksum = sum;
+  }
+}
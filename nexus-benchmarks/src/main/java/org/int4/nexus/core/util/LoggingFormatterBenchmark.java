@@ -0,0 +1,71 @@
+package org.int4.nexus.core.util;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingFormatterBenchmark {
+  private final MyLoggingFormatter formatter = new MyLoggingFormatter();
+  private final StringBuilder builder = new StringBuilder();
+
+  private LogRecord hop;
+  private LogRecord multiLine;
+  private LogRecord exception;
+
+  @Setup
+  public void setup() {
+    hop = record(Level.INFO, "  -> irsend:NEC:32:5EA158A7:0");
+    multiLine = record(Level.INFO, "Metrics:\n  input.accepted: 1234\n  input.dropped: 0\n  lane.http.executed: 1200");
+    exception = record(Level.WARNING, "Exception while processing input");
+    exception.setThrown(new IOException("Connection refused"));
+  }
+
+  @Benchmark
+  public String formatHop() {
+    return formatter.format(hop);
+  }
+
+  @Benchmark
+  public int formatHopIntoBuilder() {
+    builder.setLength(0);
+    formatter.format(hop, "main", builder);
+
+    return builder.length();
+  }
+
+  @Benchmark
+  public String formatMultiLine() {
+    return formatter.format(multiLine);
+  }
+
+  @Benchmark
+  public String formatException() {
+    return formatter.format(exception);
+  }
+
+  private static LogRecord record(Level level, String message) {
+    LogRecord record = new LogRecord(level, message);
+
+    record.setLoggerName("org.int4.nexus.core.InputHandler");
+
+    return record;
+  }
+}
@@ -0,0 +1,75 @@
+package org.int4.nexus.core.util;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.logging.StreamHandler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoggingLatencyBenchmark {
+  @Param({"off", "sync", "async-block", "async-drop"})
+  public String mode;
+
+  private Logger logger;
+  private Handler handler;
+  private int index;
+
+  @Setup
+  public void setup() {
+    logger = Logger.getLogger("org.int4.nexus.core.CommandSink");
+    logger.setUseParentHandlers(false);
+    logger.setLevel(mode.equals("off") ? Level.WARNING : Level.INFO);
+
+    handler = switch(mode) {
+      case "off", "sync" -> new StreamHandler(OutputStream.nullOutputStream(), new MyLoggingFormatter()) {
+        @Override
+        public synchronized void publish(LogRecord record) {
+          super.publish(record);
+          flush();
+        }
+      };
+      case "async-block" -> new AsyncLogHandler(OutputStream.nullOutputStream(), StandardCharsets.UTF_8, new MyLoggingFormatter(), 8192, AsyncLogHandler.OverflowPolicy.BLOCK);
+      case "async-drop" -> new AsyncLogHandler(OutputStream.nullOutputStream(), StandardCharsets.UTF_8, new MyLoggingFormatter(), 8192, AsyncLogHandler.OverflowPolicy.DROP);
+      default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+    };
+
+    logger.addHandler(handler);
+  }
+
+  @TearDown
+  public void tearDown() {
+    logger.removeHandler(handler);
+    handler.close();
+  }
+
+  @Benchmark
+  public void logInput() {
+    int key = index++ & 0xff;
+
+    logger.log(Level.INFO, "Received input event: input-device:rc1:KEY:" + key + ":pressed");
+    logger.log(Level.INFO, "  -> device:Yamaha:VOL_UP");
+    logger.log(Level.INFO, "  -> irsend:NEC:32:5EA158A7:0");
+  }
+}
@@ -0,0 +1,99 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.util.Throwables;
+
+class ActionResolver {
+  private static final int MAX_HOPS = 32;
+
+  private final Map<String, ActionHandler> actionHandlers;
+
+  ActionResolver(Map<String, ActionHandler> actionHandlers) {
+    this.actionHandlers = actionHandlers;
+  }
+
+  ResolutionPlan resolve(Action action, Activity activity, boolean staticOnly) {
+    List<String> hops = new ArrayList<>();
+    List<StateChange> stateChanges = new ArrayList<>();
+    Set<URI> visited = new HashSet<>();
+    Action a = action;
+
+    for(;;) {
+      if(!visited.add(a.uri())) {
+        return new ResolutionPlan(a, null, hops, "Cyclic chain for " + action.uri() + " at " + a.uri(), stateChanges);
+      }
+
+      if(hops.size() == MAX_HOPS) {
+        return new ResolutionPlan(a, null, hops, "Chain for " + action.uri() + " exceeds " + MAX_HOPS + " hops", stateChanges);
+      }
+
+      hops.add("  -> " + a.uri());
+
+      String scheme = a.uri().getScheme();
+
+      if(scheme.equals("activity") || scheme.equals("delay")) {
+        return new ResolutionPlan(a, null, hops, null, stateChanges);
+      }
+
+      if(scheme.equals("cmd") && activity != null) {
+        Action cmd = activity.mappings().get(a.uri().getSchemeSpecificPart());
+
+        if(cmd != null) {
+          a = cmd;
+          continue;
+        }
+      }
+
+      ActionHandler actionHandler = actionHandlers.get(scheme);
+
+      if(actionHandler instanceof TerminalActionHandler terminalActionHandler) {
+        return new ResolutionPlan(a, terminalActionHandler, hops, null, stateChanges);
+      }
+
+      if(actionHandler == null) {
+        hops.add("No handler for " + action);
+
+        return new ResolutionPlan(null, null, hops, null, stateChanges);
+      }
+
+      if(staticOnly && !(actionHandler instanceof StaticActionHandler)) {
+        hops.removeLast();  // residual action is logged again when its resolution resumes
+
+        return new ResolutionPlan(a, null, hops, null, stateChanges);
+      }
+
+      if(actionHandler instanceof DeviceHandler deviceHandler) {
+        StateChange stateChange = deviceHandler.stateChange(a);
+
+        if(stateChange != null) {
+          stateChanges.add(stateChange);
+        }
+      }
+
+      Optional<Action> next;
+
+      try {
+        next = actionHandler.handle(a);
+      }
+      catch(RuntimeException e) {
+        return new ResolutionPlan(a, null, hops, "Unable to resolve " + a.uri() + ": " + Throwables.formatAsOneLine(e), stateChanges);
+      }
+
+      if(next.isEmpty()) {
+        return new ResolutionPlan(null, null, hops, null, stateChanges);
+      }
+
+      a = next.get();
+    }
+  }
+}
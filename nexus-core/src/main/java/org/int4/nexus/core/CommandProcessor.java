@@ -0,0 +1,42 @@
+package org.int4.nexus.core;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.Executor;
+
+import org.int4.nexus.core.IngressQueue.AdmissionPolicy;
+import org.int4.nexus.core.util.Throwables;
+
+class CommandProcessor implements Runnable, Executor {
+  private static final Logger LOGGER = System.getLogger(CommandProcessor.class.getName());
+
+  private final IngressQueue queue = new IngressQueue();
+
+  IngressQueue.Source source(String id, AdmissionPolicy policy, int capacity, int weight) {
+    return queue.source(id, policy, capacity, weight);
+  }
+
+  void removeSource(String id) {
+    queue.removeSource(id);
+  }
+
+  @Override
+  public void execute(Runnable continuation) {
+    queue.addContinuation(continuation);
+  }
+
+  @Override
+  public void run() {
+    for(;;) {
+      try {
+        queue.take().run();
+      }
+      catch(InterruptedException e) {
+        return;
+      }
+      catch(Exception e) {
+        LOGGER.log(Level.WARNING, "Exception while processing input: " + Throwables.formatAsOneLine(e));
+      }
+    }
+  }
+}
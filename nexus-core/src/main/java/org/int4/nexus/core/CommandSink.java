@@ -0,0 +1,81 @@
+package org.int4.nexus.core;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.trace.InputDequeuedEvent;
+import org.int4.nexus.core.trace.InputEnqueuedEvent;
+import org.int4.nexus.core.trace.Trace;
+
+class CommandSink implements InputSink {
+  private static final Logger LOGGER = System.getLogger(CommandSink.class.getName());
+
+  private final IngressQueue.Source source;
+  private final InputHandler inputHandler;
+
+  CommandSink(IngressQueue.Source source, InputHandler inputHandler) {
+    this.source = source;
+    this.inputHandler = inputHandler;
+  }
+
+  @Override
+  public void accept(URI uri) {
+    Trace trace = Trace.start();
+
+    LOGGER.log(Level.INFO, "Received input event: " + uri);
+
+    offer(trace, uri, inputHandler.isEssential(uri), () -> inputHandler.process(uri, trace), () -> uri);
+  }
+
+  @Override
+  public void acceptAll(List<URI> inputs) {
+    Trace trace = Trace.start();
+    List<URI> batch = List.copyOf(inputs);  // caller reuses the list
+
+    for(URI uri : batch) {
+      LOGGER.log(Level.INFO, "Received input event: " + uri);
+    }
+
+    offer(trace, batch, batch.stream().anyMatch(inputHandler::isEssential), () -> batch.forEach(uri -> inputHandler.process(uri, trace)), () -> batch);
+  }
+
+  @Override
+  public void acceptKeys(long[] keys, int count, InputCodec codec) {
+    Trace trace = Trace.start();
+    long[] batch = Arrays.copyOf(keys, count);  // caller reuses the array
+
+    if(LOGGER.isLoggable(Level.DEBUG)) {  // decoding allocates
+      for(long key : batch) {
+        LOGGER.log(Level.DEBUG, "Received input event: " + codec.decode(key));
+      }
+    }
+
+    boolean essential = false;
+
+    for(long key : batch) {
+      essential |= inputHandler.isEssential(key);
+    }
+
+    offer(trace, LongBuffer.wrap(batch), essential, () -> {  // a buffer compares by content, for coalescing
+      for(long key : batch) {
+        inputHandler.process(key, trace);
+      }
+    }, () -> Arrays.stream(batch).mapToObj(codec::decode).toList());
+  }
+
+  private void offer(Trace trace, Object key, boolean essential, Runnable input, Supplier<Object> description) {
+    InputEnqueuedEvent.commit(trace, description);
+
+    source.offer(new IngressQueue.Input(trace, key, essential, () -> {
+      InputDequeuedEvent.commit(trace);
+      input.run();
+    }, description));
+  }
+}
@@ -14,5 +14,8 @@ record Configuration(
   List<Device> devices,
   @JsonProperty("input-mappings") Map<URI, Action> inputMappings,
   List<Activity> activities,
-  Map<String, Template> templates
-) {}
+  Map<String, Template> templates,
+  List<Zone> zones
+) {
+  static final Configuration EMPTY = new Configuration(Map.of(), Map.of(), List.of(), Map.of(), List.of(), Map.of(), List.of());
+}
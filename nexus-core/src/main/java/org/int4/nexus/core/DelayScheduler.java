@@ -0,0 +1,41 @@
+package org.int4.nexus.core;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+
+class DelayScheduler {
+  private final ScheduledExecutorService scheduler;
+
+  DelayScheduler(ScheduledExecutorService scheduler) {
+    this.scheduler = scheduler;
+  }
+
+  CompletableFuture<Void> delay(Action action) {
+    String[] parts = action.uri().getSchemeSpecificPart().split(":");
+
+    int amount = Integer.parseInt(parts[0]);
+    Duration duration = Duration.of(amount, convert(parts[1]));
+    CompletableFuture<Void> future = new CompletableFuture<>();
+    ScheduledFuture<?> scheduledFuture = scheduler.schedule(() -> future.complete(null), duration.toNanos(), TimeUnit.NANOSECONDS);
+
+    future.whenComplete((v, t) -> scheduledFuture.cancel(false));  // removes the timer if future was completed early
+
+    return future;
+  }
+
+  private static ChronoUnit convert(String unit) {
+    return switch(unit) {
+      case "ms" -> ChronoUnit.MILLIS;
+      case "s" -> ChronoUnit.SECONDS;
+      case "ns" -> ChronoUnit.NANOS;
+      case "m" -> ChronoUnit.MINUTES;
+      default -> ChronoUnit.valueOf(unit);
+    };
+  }
+}
@@ -13,5 +13,7 @@ record Device(
   String id,
   List<Action> activation,
   List<Action> deactivation,
-  Map<String, Action> mappings
+  Map<String, Action> mappings,
+  List<String> after,
+  Map<String, List<String>> states
 ) {}
@@ -1,22 +1,32 @@
 package org.int4.nexus.core;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.int4.nexus.core.api.Action;
-import org.int4.nexus.core.api.ActionHandler;
 
-class DeviceHandler implements ActionHandler {
+class DeviceHandler implements StaticActionHandler {
   private static final String IDENTIFIER_PART = "[_A-Za-z0-9]+";  // allows identifiers that start with a number
   private static final String IDENTIFIER = IDENTIFIER_PART + "(?:-" + IDENTIFIER_PART + ")*";
   private static final Pattern PATTERN = Pattern.compile("(" + IDENTIFIER + "):(" + IDENTIFIER + ")");
 
   private final List<Device> devices;
+  private final Map<String, StateChange> stateChanges = new HashMap<>();  // by device and mapping name
 
   public DeviceHandler(List<Device> devices) {
     this.devices = devices;
+
+    for(Device device : devices) {
+      for(Map.Entry<String, List<String>> entry : device.states().entrySet()) {
+        for(String mappingName : entry.getValue()) {
+          stateChanges.put(device.id() + ":" + mappingName, new StateChange(device.id(), entry.getKey(), mappingName));
+        }
+      }
+    }
   }
 
   @Override
@@ -36,4 +46,8 @@ class DeviceHandler implements ActionHandler {
 
     return Optional.empty();
   }
+
+  StateChange stateChange(Action action) {
+    return stateChanges.get(action.uri().getSchemeSpecificPart());
+  }
 }
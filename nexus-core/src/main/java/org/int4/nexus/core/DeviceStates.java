@@ -0,0 +1,79 @@
+package org.int4.nexus.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+class DeviceStates {
+  private final Map<String, Map<String, String>> statesByDevice = new HashMap<>();
+  private final Set<String> poweredDevices = new HashSet<>();
+  private final Set<String> unsettledDevices = new HashSet<>();
+
+  boolean isPowered(String deviceId) {
+    return poweredDevices.contains(deviceId);
+  }
+
+  void setPowered(String deviceId, boolean powered) {
+    if(powered) {
+      poweredDevices.add(deviceId);
+    }
+    else {
+      poweredDevices.remove(deviceId);
+      statesByDevice.remove(deviceId);
+    }
+  }
+
+  boolean isSettled(String deviceId) {
+    return !unsettledDevices.contains(deviceId);
+  }
+
+  void setSettled(String deviceId, boolean settled) {
+    if(settled) {
+      unsettledDevices.remove(deviceId);
+    }
+    else {
+      unsettledDevices.add(deviceId);
+    }
+  }
+
+  Set<String> poweredDevices() {
+    return Set.copyOf(poweredDevices);
+  }
+
+  Set<String> unsettledDevices() {
+    return Set.copyOf(unsettledDevices);
+  }
+
+  boolean holds(StateChange change) {
+    return change.value().equals(statesByDevice.getOrDefault(change.deviceId(), Map.of()).get(change.property()));
+  }
+
+  void apply(StateChange change) {
+    statesByDevice.computeIfAbsent(change.deviceId(), k -> new HashMap<>()).put(change.property(), change.value());
+  }
+
+  void retain(Set<String> deviceIds) {
+    poweredDevices.retainAll(deviceIds);
+    unsettledDevices.retainAll(deviceIds);
+    statesByDevice.keySet().retainAll(deviceIds);
+  }
+
+  void restore(Set<String> poweredDevices, Set<String> unsettledDevices, Map<String, Map<String, String>> states) {
+    this.poweredDevices.clear();
+    this.poweredDevices.addAll(poweredDevices);
+    this.unsettledDevices.clear();
+    this.unsettledDevices.addAll(unsettledDevices);
+    this.statesByDevice.clear();
+
+    states.forEach((id, properties) -> statesByDevice.put(id, new HashMap<>(properties)));
+  }
+
+  Map<String, Map<String, String>> states() {
+    Map<String, Map<String, String>> copy = new HashMap<>();
+
+    statesByDevice.forEach((id, properties) -> copy.put(id, Map.copyOf(properties)));
+
+    return Map.copyOf(copy);
+  }
+}
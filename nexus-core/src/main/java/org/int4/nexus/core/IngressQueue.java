@@ -0,0 +1,290 @@
+package org.int4.nexus.core;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.int4.nexus.core.trace.InputDroppedEvent;
+import org.int4.nexus.core.trace.Trace;
+import org.int4.nexus.core.util.Metrics;
+
+class IngressQueue {
+  private static final Logger LOGGER = System.getLogger(IngressQueue.class.getName());
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Deque<Runnable> continuations = new ArrayDeque<>();
+  private final Map<String, Source> sourcesById = new LinkedHashMap<>();
+  private final List<Source> sources = new ArrayList<>();  // in round-robin order
+
+  private int current;  // index of the source being served
+  private int served;  // inputs taken from the current source in its turn
+
+  enum AdmissionPolicy {
+
+    DROP_OLDEST,
+
+    DROP_NEWEST,
+
+    COALESCE,
+
+    BLOCK
+  }
+
+  record Input(Trace trace, Object key, boolean essential, Runnable task, Supplier<Object> description) {}
+
+  Source source(String id, AdmissionPolicy policy, int capacity, int weight) {
+    if(capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive: " + capacity);
+    }
+    if(weight < 1) {
+      throw new IllegalArgumentException("weight must be positive: " + weight);
+    }
+
+    lock.lock();
+
+    try {
+      Source source = sourcesById.get(id);
+
+      if(source == null) {
+        source = new Source(id);
+
+        sourcesById.put(id, source);
+        sources.add(source);
+      }
+
+      source.removed = false;
+      source.policy = policy;
+      source.capacity = capacity;
+      source.weight = weight;
+
+      return source;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  void removeSource(String id) {
+    lock.lock();
+
+    try {
+      Source source = sourcesById.get(id);
+
+      if(source != null) {
+        source.removed = true;
+
+        if(source.inputs.isEmpty()) {
+          remove(source);
+        }
+      }
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  void addContinuation(Runnable continuation) {
+    lock.lock();
+
+    try {
+      continuations.add(continuation);
+      notEmpty.signal();
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  Runnable take() throws InterruptedException {
+    lock.lockInterruptibly();
+
+    try {
+      for(;;) {
+        Runnable continuation = continuations.poll();
+
+        if(continuation != null) {
+          return continuation;
+        }
+
+        Input input = nextInput();
+
+        if(input != null) {
+          return input.task;
+        }
+
+        notEmpty.await();
+      }
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  // Weighted round-robin; trying one more source than there are gives the current source a new turn when all others are empty:
+  private Input nextInput() {
+    for(int i = 0; i <= sources.size() && !sources.isEmpty(); i++) {
+      Source source = sources.get(current);
+
+      if(served < source.weight) {
+        Input input = source.inputs.poll();
+
+        if(input != null) {
+          served++;
+          source.notFull.signal();
+
+          return input;
+        }
+      }
+
+      if(source.removed && source.inputs.isEmpty()) {
+        remove(source);  // the next source moved into the current position
+      }
+      else {
+        current = (current + 1) % sources.size();
+      }
+
+      served = 0;
+    }
+
+    return null;
+  }
+
+  private void remove(Source source) {
+    int index = sources.indexOf(source);
+
+    sources.remove(index);
+    sourcesById.remove(source.id);
+
+    if(index < current) {
+      current--;
+    }
+    else if(index == current) {
+      served = 0;  // the next source gets a full turn
+    }
+
+    if(current >= sources.size()) {
+      current = 0;
+    }
+
+    Metrics.unregister("ingress." + source.id + ".depth", source.depthGauge);
+  }
+
+  class Source {
+    private final String id;
+    private final Deque<Input> inputs = new ArrayDeque<>();
+    private final Condition notFull = lock.newCondition();
+    private final LongAdder admitted;
+    private final LongAdder dropped;
+    private final LongAdder coalesced;
+    private final LongSupplier depthGauge = this::depth;
+
+    private AdmissionPolicy policy;
+    private int capacity;
+    private int weight;
+    private boolean removed;  // removed once empty
+
+    Source(String id) {
+      this.id = id;
+      this.admitted = Metrics.counter("ingress." + id + ".admitted");
+      this.dropped = Metrics.counter("ingress." + id + ".dropped");
+      this.coalesced = Metrics.counter("ingress." + id + ".coalesced");
+
+      Metrics.gauge("ingress." + id + ".depth", depthGauge);
+    }
+
+    boolean offer(Input input) {
+      Input evicted;
+
+      lock.lock();
+
+      try {
+        if(policy == AdmissionPolicy.COALESCE && !input.essential && isWaiting(input.key)) {  // a release can't stand in for a later one
+          coalesced.increment();
+
+          return false;
+        }
+
+        while(policy == AdmissionPolicy.BLOCK && inputs.size() >= capacity && !input.essential) {
+          notFull.await();
+        }
+
+        evicted = inputs.size() < capacity || input.essential ? null
+          : policy == AdmissionPolicy.DROP_NEWEST ? input
+          : removeOldestNonEssential();
+
+        if(evicted != input) {
+          inputs.add(input);
+          admitted.increment();
+          notEmpty.signal();
+        }
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        evicted = input;
+      }
+      finally {
+        lock.unlock();
+      }
+
+      if(evicted != null) {
+        dropped.increment();
+
+        if(LOGGER.isLoggable(Level.DEBUG)) {
+          LOGGER.log(Level.DEBUG, "Queue of " + id + " is full, dropped input: " + evicted.description.get());
+        }
+
+        InputDroppedEvent.commit(evicted.trace, evicted.description);
+      }
+
+      return evicted != input;
+    }
+
+    long depth() {
+      lock.lock();
+
+      try {
+        return inputs.size();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private boolean isWaiting(Object key) {
+      for(Input waiting : inputs) {
+        if(waiting.key.equals(key)) {
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    // Returns null, so the input is admitted anyway, when only essential inputs are waiting:
+    private Input removeOldestNonEssential() {
+      for(Iterator<Input> iterator = inputs.iterator(); iterator.hasNext(); ) {
+        Input waiting = iterator.next();
+
+        if(!waiting.essential) {
+          iterator.remove();
+
+          return waiting;
+        }
+      }
+
+      return null;
+    }
+  }
+}
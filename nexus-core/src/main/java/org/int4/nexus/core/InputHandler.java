@@ -0,0 +1,619 @@
+package org.int4.nexus.core;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.state.RuntimeState;
+import org.int4.nexus.core.state.StateFile;
+import org.int4.nexus.core.trace.ResolutionEvent;
+import org.int4.nexus.core.trace.ResolutionHopEvent;
+import org.int4.nexus.core.trace.Trace;
+import org.int4.nexus.core.util.LongTable;
+import org.int4.nexus.core.util.Throwables;
+
+class InputHandler {
+  private static final Logger LOGGER = System.getLogger(InputHandler.class.getName());
+
+  private final Executor executor;
+  private final LaneExecutor laneExecutor;
+  private final DelayScheduler delayScheduler;
+  private final DeviceStates deviceStates = new DeviceStates();
+  private final StateFile stateFile;
+  private final Map<String, ActionHandler> actionHandlers = new HashMap<>();
+  private final ActionResolver resolver = new ActionResolver(actionHandlers);
+  private final Map<String, InputCodec> inputCodecs = new HashMap<>();
+
+  private Configuration config = Configuration.EMPTY;
+  private Map<Activity, Map<URI, ResolutionPlan>> plansByActivity = new IdentityHashMap<>();
+  private Map<URI, ResolutionPlan> plans = Map.of();
+  private Map<Activity, LongTable<ResolutionPlan>> keyPlansByActivity = new IdentityHashMap<>();
+  private LongTable<ResolutionPlan> keyPlans = LongTable.empty();
+  private Activity currentActivity;
+  private String restoredActivity;  // id of the activity of a previous run, until the first configuration
+  private CompletableFuture<Void> activitySwitch = CompletableFuture.completedFuture(null);
+  private Switch latestSwitch;  // the switch activitySwitch completes with
+
+  // Read by connector threads, so published as a whole:
+  private volatile InputSet essentials = InputSet.EMPTY;
+
+  private InputSet repeats = InputSet.EMPTY;
+
+  private record InputSet(Set<URI> inputs, LongTable<Boolean> keys) {
+    static final InputSet EMPTY = new InputSet(Set.of(), LongTable.empty());
+  }
+
+  public InputHandler(Executor executor, LaneExecutor laneExecutor, DelayScheduler delayScheduler, StateFile stateFile) {
+    this.executor = executor;
+    this.laneExecutor = laneExecutor;
+    this.delayScheduler = delayScheduler;
+    this.stateFile = stateFile;
+
+    if(stateFile != null) {
+      RuntimeState state = stateFile.read();
+
+      deviceStates.restore(state.poweredDevices(), state.unsettledDevices(), state.deviceStates());
+      restoredActivity = state.activity();
+
+      if(!state.equals(RuntimeState.EMPTY)) {
+        LOGGER.log(Level.INFO, "Restored activity " + state.activity() + " with powered devices " + state.poweredDevices() + (state.unsettledDevices().isEmpty() ? "" : " and unsettled devices " + state.unsettledDevices()));
+      }
+    }
+  }
+
+  void reconfigure(Configuration config, Map<String, ActionHandler> handlers, Map<String, InputCodec> codecs) {
+    Configuration previousConfig = this.config;
+    Map<String, ActionHandler> previousHandlers = new HashMap<>(actionHandlers);
+    Map<String, InputCodec> previousCodecs = new HashMap<>(inputCodecs);
+    Activity previousActivity = currentActivity;
+
+    try {
+      install(config, handlers, codecs);
+    }
+    catch(RuntimeException e) {
+      currentActivity = previousActivity;
+
+      install(previousConfig, previousHandlers, previousCodecs);
+
+      throw e;
+    }
+
+    Map<String, Device> devices = new HashMap<>();
+
+    for(Device device : config.devices()) {
+      devices.put(device.id(), device);
+    }
+
+    for(String id : deviceStates.poweredDevices()) {
+      if(!devices.containsKey(id)) {
+        LOGGER.log(Level.WARNING, "Active device " + id + " is no longer configured, it will not be deactivated");
+      }
+    }
+
+    deviceStates.retain(devices.keySet());
+    restoredActivity = null;
+
+    persist();
+  }
+
+  private void install(Configuration config, Map<String, ActionHandler> handlers, Map<String, InputCodec> codecs) {
+    this.config = config;
+
+    actionHandlers.clear();
+    actionHandlers.putAll(handlers);
+    inputCodecs.clear();
+    inputCodecs.putAll(codecs);
+
+    String activityId = currentActivity == null ? restoredActivity : currentActivity.id();
+
+    if(activityId != null) {
+      Activity activity = findActivity(activityId);
+
+      if(activity == null) {
+        LOGGER.log(Level.WARNING, "Current activity " + activityId + " is no longer configured");
+      }
+
+      currentActivity = activity;
+    }
+
+    compile();
+  }
+
+  private void persist() {
+    if(stateFile == null) {
+      return;
+    }
+
+    try {
+      stateFile.write(new RuntimeState(currentActivity == null ? null : currentActivity.id(), deviceStates.poweredDevices(), deviceStates.unsettledDevices(), deviceStates.states()));
+    }
+    catch(IOException e) {
+      LOGGER.log(Level.WARNING, "Unable to persist state: " + Throwables.formatAsOneLine(e));
+    }
+  }
+
+  private void compile() {
+    Map<Activity, Map<URI, ResolutionPlan>> compiledPlans = new IdentityHashMap<>();
+    Map<Activity, LongTable<ResolutionPlan>> compiledKeyPlans = new IdentityHashMap<>();
+
+    compiledPlans.put(null, compile(null));
+
+    for(Activity activity : config.activities()) {
+      compiledPlans.put(activity, compile(activity));
+    }
+
+    compiledPlans.forEach((activity, table) -> compiledKeyPlans.put(activity, toKeyTable(table)));
+
+    this.plansByActivity = compiledPlans;
+    this.plans = compiledPlans.get(currentActivity);
+    this.keyPlansByActivity = compiledKeyPlans;
+    this.keyPlans = compiledKeyPlans.get(currentActivity);
+    // A lost release leaves whatever the press started running, and a lost activity switch leaves the wrong devices on:
+    this.essentials = findInputs(compiledPlans, (input, action) -> hasState(input, "released") || (action != null && action.uri().getScheme().equals("activity")));
+    this.repeats = findInputs(compiledPlans, (input, action) -> hasState(input, "held"));
+
+    prepareHandlers();
+  }
+
+  private InputSet findInputs(Map<Activity, Map<URI, ResolutionPlan>> compiledPlans, BiPredicate<URI, Action> predicate) {
+    Set<URI> inputs = new HashSet<>();
+
+    for(Map<URI, ResolutionPlan> table : compiledPlans.values()) {
+      for(Map.Entry<URI, ResolutionPlan> entry : table.entrySet()) {
+        if(predicate.test(entry.getKey(), entry.getValue().action())) {
+          inputs.add(entry.getKey());
+        }
+      }
+    }
+
+    Map<Long, Boolean> keys = new HashMap<>();
+
+    for(URI input : inputs) {
+      InputCodec codec = inputCodecs.get(input.getScheme());
+
+      if(codec != null) {
+        for(long key : codec.encode(input)) {
+          keys.put(key, true);
+        }
+      }
+    }
+
+    return new InputSet(Set.copyOf(inputs), LongTable.of(keys));
+  }
+
+  // The state of an input is the last part of its scheme specific part, like "input-device:rc1:KEY:VOLUMEUP:released":
+  private static boolean hasState(URI input, String state) {
+    String part = input.getSchemeSpecificPart();
+
+    return part != null && part.substring(part.lastIndexOf(':') + 1).equals(state);
+  }
+
+  boolean isEssential(URI input) {
+    return essentials.inputs().contains(input);
+  }
+
+  boolean isEssential(long key) {
+    return essentials.keys().get(key) != null;
+  }
+
+  // Prepares all terminal actions known in advance, so the first action for a target does not pay for setting up a connection:
+  private void prepareHandlers() {
+    Map<String, ResolutionPlan> plansByTarget = new HashMap<>();
+    List<Action> steps = new ArrayList<>();
+
+    for(Device device : config.devices()) {
+      steps.addAll(device.activation());
+      steps.addAll(device.deactivation());
+    }
+
+    for(Activity activity : config.activities()) {
+      steps.addAll(activity.setup());
+    }
+
+    for(Action step : steps) {
+      add(plansByTarget, resolver.resolve(step, null, true));
+    }
+
+    for(Map<URI, ResolutionPlan> table : plansByActivity.values()) {
+      table.values().forEach(plan -> add(plansByTarget, plan));
+    }
+
+    for(ResolutionPlan plan : plansByTarget.values()) {
+      try {
+        plan.handler().prepare(plan.action());
+      }
+      catch(Exception e) {
+        LOGGER.log(Level.WARNING, "Unable to prepare for " + plan.action() + ": " + Throwables.formatAsOneLine(e));
+      }
+    }
+  }
+
+  private static void add(Map<String, ResolutionPlan> plansByTarget, ResolutionPlan plan) {
+    if(plan.problem() == null && plan.isTerminal()) {
+      plansByTarget.putIfAbsent(plan.handler().target(plan.action()), plan);
+    }
+  }
+
+  private Map<URI, ResolutionPlan> compile(Activity activity) {
+    Map<URI, ResolutionPlan> compiledPlans = new HashMap<>();
+
+    for(Map.Entry<URI, Action> entry : config.inputMappings().entrySet()) {
+      ResolutionPlan plan = resolver.resolve(entry.getValue(), activity, true);
+
+      if(plan.problem() != null) {
+        LOGGER.log(Level.WARNING, "Input " + entry.getKey() + (activity == null ? "" : " in activity " + activity.id()) + " cannot be resolved: " + plan.problem());
+      }
+
+      compiledPlans.put(entry.getKey(), plan);
+    }
+
+    return compiledPlans;
+  }
+
+  private LongTable<ResolutionPlan> toKeyTable(Map<URI, ResolutionPlan> table) {
+    Map<Long, ResolutionPlan> plansByKey = new HashMap<>();
+    Map<Long, String> schemesByTag = new HashMap<>();
+
+    for(Map.Entry<URI, ResolutionPlan> entry : table.entrySet()) {
+      InputCodec codec = inputCodecs.get(entry.getKey().getScheme());
+
+      if(codec != null) {
+        for(long key : codec.encode(entry.getKey())) {
+          String scheme = schemesByTag.putIfAbsent(key & InputCodec.TAG_MASK, codec.scheme());
+
+          if(scheme != null && !scheme.equals(codec.scheme())) {
+            throw new IllegalStateException("Input codecs for " + scheme + " and " + codec.scheme() + " use the same key tag");
+          }
+
+          plansByKey.put(key, entry.getValue());
+        }
+      }
+    }
+
+    return LongTable.of(plansByKey);
+  }
+
+  void process(URI input, Trace trace) {
+    process(plans.get(input), repeats.inputs().contains(input), trace);
+  }
+
+  void process(long key, Trace trace) {
+    process(keyPlans.get(key), repeats.keys().get(key) != null, trace);
+  }
+
+  private void process(ResolutionPlan plan, boolean repeat, Trace trace) {
+    if(plan == null) {
+      return;
+    }
+
+    if(plan.problem() == null && plan.isTerminal()) {
+      logHops(plan, trace);
+
+      Action action = plan.action();
+      TerminalActionHandler handler = plan.handler();
+      String target = handler.target(action);
+
+      // A waiting repeat of a held key absorbs the next repeat, so a held key does not build up a backlog in front of a slow
+      // target. Other inputs are distinct presses which must all take effect, as the device may be out of sync:
+      CompletableFuture<Void> future = repeat
+        ? laneExecutor.submitCoalescable(target, action, trace, () -> handler.admit(action), count -> handler.submit(action))
+        : laneExecutor.submit(target, trace, () -> handler.admit(action), () -> handler.submit(action));
+
+      future.thenRunAsync(() -> applyStateChanges(plan), executor);
+
+      return;
+    }
+
+    execute(plan, trace);
+  }
+
+  private void processActivity(Action action, Trace trace) {
+    if(action.uri().getSchemeSpecificPart().equals("off")) {
+      switchActivity("off", (sw, timeline) -> setParticipants(List.of(), trace, sw, timeline));
+    }
+    else if(action.uri().getSchemeSpecificPart().startsWith("switch:")) {
+
+      // Find and possibly activate new activity
+      Activity activity = findActivity(action.uri().getSchemeSpecificPart().substring(7));
+
+      if(activity != null) {
+        switchActivity(activity.id(), (sw, timeline) -> setParticipants(activity.participants(), trace, sw, timeline)
+          .thenComposeAsync(v -> timeline.record("Setting up " + activity.id(), () -> {
+            LOGGER.log(Level.INFO, "Setting up activity " + activity.id());
+
+            return doSteps(activity.setup(), trace, sw);
+          }), executor)
+          .thenRunAsync(() -> setCurrentActivity(activity.id()), executor)
+        );
+      }
+    }
+  }
+
+  private Activity findActivity(String id) {
+    for(Activity activity : config.activities()) {
+      if(activity.id().equals(id)) {
+        return activity;
+      }
+    }
+
+    return null;
+  }
+
+  CompletableFuture<Void> latestActivitySwitch() {
+    return activitySwitch.exceptionally(t -> null);
+  }
+
+  // Looks up activity by id, as configuration may have been reloaded during the switch:
+
+  private void setCurrentActivity(String id) {
+    this.currentActivity = findActivity(id);
+    this.plans = plansByActivity.get(currentActivity);
+    this.keyPlans = keyPlansByActivity.get(currentActivity);
+
+    persist();
+  }
+
+  // Switches are chained like other sequences, and a newer switch supersedes the one still running or waiting:
+  private void switchActivity(String target, BiFunction<Switch, Timeline, CompletableFuture<Void>> switcher) {
+    String title = "Switch to " + target;
+
+    if(!activitySwitch.isDone()) {
+      if(latestSwitch.target.equals(target)) {
+        LOGGER.log(Level.INFO, "Already switching to " + target);
+
+        return;
+      }
+
+      latestSwitch.cancel();
+    }
+
+    Switch sw = new Switch(target);
+
+    latestSwitch = sw;
+    activitySwitch = activitySwitch
+      .exceptionally(t -> null)  // failure was already reported
+      .thenComposeAsync(v -> {
+        if(sw.isCancelled()) {
+          return CompletableFuture.<Void>failedFuture(new CancellationException());
+        }
+
+        Timeline timeline = new Timeline(title);
+
+        return switcher.apply(sw, timeline).whenComplete((w, t) -> LOGGER.log(Level.INFO, timeline.format()));
+      }, executor)
+      .whenComplete((v, t) -> {
+        if(sw.isCancelled()) {
+          LOGGER.log(Level.INFO, title + " was superseded");
+        }
+        else if(t != null) {
+          LOGGER.log(Level.WARNING, "Activity switch did not complete: " + Throwables.formatAsOneLine(t));
+        }
+      });
+  }
+
+  // A device whose last sequence was cancelled is unsettled, and gets the sequence of the new activity again:
+  CompletableFuture<Void> setParticipants(List<Device> participants, Trace trace, Switch sw, Timeline timeline) {
+    List<Device> newDevices = new ArrayList<>();
+    List<Device> superfluousDevices = new ArrayList<>();
+
+    for(Device participant : participants) {
+      if(!deviceStates.isPowered(participant.id()) || !deviceStates.isSettled(participant.id())) {
+        newDevices.add(participant);
+      }
+    }
+
+    for(Device device : config.devices()) {
+      if((deviceStates.isPowered(device.id()) || !deviceStates.isSettled(device.id())) && !participants.contains(device)) {
+        superfluousDevices.add(device);
+      }
+    }
+
+    return CompletableFuture.allOf(
+      startSequences(newDevices, "Activating", true, Device::activation, trace, sw, timeline),
+      startSequences(superfluousDevices, "Deactivating", false, Device::deactivation, trace, sw, timeline)
+    );
+  }
+
+  // A device is only marked as powered once its sequence starts, and as settled once it completes:
+  private CompletableFuture<Void> startSequences(List<Device> devices, String verb, boolean powered, Function<Device, List<Action>> sequence, Trace trace, Switch sw, Timeline timeline) {
+    Map<String, Device> devicesById = new HashMap<>();
+    Map<String, CompletableFuture<Void>> started = new HashMap<>();
+
+    for(Device device : devices) {
+      devicesById.put(device.id(), device);
+    }
+
+    for(Device device : devices) {
+      startSequence(device, devicesById, started, new HashSet<>(), verb, powered, sequence, trace, sw, timeline);
+    }
+
+    return CompletableFuture.allOf(started.values().toArray(CompletableFuture[]::new));
+  }
+
+  private CompletableFuture<Void> startSequence(Device device, Map<String, Device> devicesById, Map<String, CompletableFuture<Void>> started, Set<String> visiting, String verb, boolean powered, Function<Device, List<Action>> sequence, Trace trace, Switch sw, Timeline timeline) {
+    CompletableFuture<Void> future = started.get(device.id());
+
+    if(future != null) {
+      return future;
+    }
+
+    List<CompletableFuture<Void>> predecessors = new ArrayList<>();
+
+    visiting.add(device.id());
+
+    for(String id : device.after()) {
+      Device predecessor = devicesById.get(id);
+
+      if(predecessor == null) {
+        continue;  // not part of this switch
+      }
+
+      if(visiting.contains(id)) {
+        LOGGER.log(Level.WARNING, "Device " + device.id() + " cannot come after " + id + " as " + id + " (indirectly) comes after " + device.id() + ", ignoring this ordering");
+
+        continue;
+      }
+
+      predecessors.add(startSequence(predecessor, devicesById, started, visiting, verb, powered, sequence, trace, sw, timeline));
+    }
+
+    visiting.remove(device.id());
+
+    future = CompletableFuture.allOf(predecessors.toArray(CompletableFuture[]::new))
+      .thenComposeAsync(v -> timeline.record(verb + " " + device.id(), () -> sw.step(() -> {
+        LOGGER.log(Level.INFO, verb + " " + device.id());
+
+        deviceStates.setPowered(device.id(), powered);
+        deviceStates.setSettled(device.id(), false);
+        persist();
+
+        return doSteps(sequence.apply(device), trace, sw);
+      })), executor)
+      .thenRunAsync(() -> {
+        deviceStates.setSettled(device.id(), true);
+        persist();
+      }, executor);
+
+    started.put(device.id(), future);
+
+    return future;
+  }
+
+  CompletableFuture<Void> executeAction(Action action, Trace trace) {
+    ResolutionEvent event = new ResolutionEvent();
+
+    event.begin();
+
+    ResolutionPlan plan = resolver.resolve(action, currentActivity, false);
+
+    event.complete(trace, action.uri(), plan.hops().size(), plan.problem());
+
+    return execute(plan, trace);
+  }
+
+  // States only change once the action succeeded, so a failed action is sent again the next time:
+  private CompletableFuture<Void> execute(ResolutionPlan plan, Trace trace) {
+    logHops(plan, trace);
+
+    if(plan.problem() != null) {
+      LOGGER.log(Level.WARNING, plan.problem());
+
+      return CompletableFuture.completedFuture(null);
+    }
+
+    if(!plan.stateChanges().isEmpty() && plan.stateChanges().stream().allMatch(deviceStates::holds)) {
+      LOGGER.log(Level.INFO, "  skipped, already in state: " + plan.stateChanges());
+
+      return CompletableFuture.completedFuture(null);
+    }
+
+    CompletableFuture<Void> future = start(plan, trace);
+
+    return plan.stateChanges().isEmpty() ? future : future.thenRunAsync(() -> applyStateChanges(plan), executor);
+  }
+
+  private CompletableFuture<Void> start(ResolutionPlan plan, Trace trace) {
+    Action action = plan.action();
+
+    if(plan.isTerminal()) {
+      return laneExecutor.submit(plan.handler().target(action), trace, () -> plan.handler().admit(action), () -> plan.handler().submit(action));
+    }
+
+    if(action == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    return switch(action.uri().getScheme()) {
+      case "activity" -> {
+        processActivity(action, trace);
+
+        yield CompletableFuture.completedFuture(null);
+      }
+      case "delay" -> delayScheduler.delay(action);
+      default -> executeAction(action, trace);  // residual action, resolve remainder now
+    };
+  }
+
+  private void applyStateChanges(ResolutionPlan plan) {
+    if(!plan.stateChanges().isEmpty()) {
+      plan.stateChanges().forEach(deviceStates::apply);
+      persist();
+    }
+  }
+
+  private static void logHops(ResolutionPlan plan, Trace trace) {
+    for(String hop : plan.hops()) {
+      LOGGER.log(Level.INFO, hop);
+      ResolutionHopEvent.commit(trace, hop);
+    }
+  }
+
+  // Each step is resolved only after the previous step completed, so steps stay ordered across targets:
+  CompletableFuture<Void> doSteps(List<Action> steps, Trace trace, Switch sw) {
+    CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+
+    for(Action action : steps) {
+      future = future.thenComposeAsync(v -> sw.step(() -> executeAction(action, trace)), executor);
+    }
+
+    return future;
+  }
+
+  static final class Switch {
+    private final String target;
+    private final Set<CompletableFuture<Void>> waitingSteps = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean cancelled;
+
+    Switch(String target) {
+      this.target = target;
+    }
+
+    boolean isCancelled() {
+      return cancelled;
+    }
+
+    CompletableFuture<Void> step(Supplier<CompletableFuture<Void>> step) {
+      if(cancelled) {
+        return CompletableFuture.failedFuture(new CancellationException());
+      }
+
+      CompletableFuture<Void> future = step.get();
+
+      if(!future.isDone()) {
+        waitingSteps.add(future);
+        future.whenComplete((v, t) -> waitingSteps.remove(future));
+      }
+
+      return future;
+    }
+
+    void cancel() {
+      cancelled = true;
+
+      for(CompletableFuture<Void> future : waitingSteps) {
+        future.cancel(false);
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package org.int4.nexus.core;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.int4.nexus.core.trace.HandlerEvent;
+import org.int4.nexus.core.trace.Trace;
+import org.int4.nexus.core.util.Metrics;
+import org.int4.nexus.core.util.Throwables;
+
+class LaneExecutor {
+  private static final Logger LOGGER = System.getLogger(LaneExecutor.class.getName());
+
+  private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+
+  CompletableFuture<Void> submit(String target, Trace trace, LongSupplier admission, Supplier<CompletableFuture<Void>> task) {
+    return lanes.computeIfAbsent(target, Lane::new).submit(null, trace, admission, count -> task.get());
+  }
+
+  CompletableFuture<Void> submitCoalescable(String target, Object key, Trace trace, LongSupplier admission, IntFunction<CompletableFuture<Void>> task) {
+    return lanes.computeIfAbsent(target, Lane::new).submit(key, trace, admission, task);
+  }
+
+  private static class Task {
+    final IntFunction<CompletableFuture<Void>> function;
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    final long submitNanos = System.nanoTime();
+    final Object key;
+    final Trace trace;
+    final long admissionNanos;
+
+    int count = 1;
+
+    Task(Object key, Trace trace, long admissionNanos, IntFunction<CompletableFuture<Void>> function) {
+      this.key = key;
+      this.trace = trace;
+      this.admissionNanos = admissionNanos;
+      this.function = function;
+    }
+  }
+
+  private static class Lane {
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Deque<Task> queue = new ArrayDeque<>();  // guarded by lock
+    private final LongAdder executed;
+    private final LongAdder coalesced;
+    private final LongAdder forwarded;
+    private final LongAdder rejected;
+    private final LongAdder waitNanos;
+    private final LongAdder runNanos;
+    private final String target;
+
+    private int maxDepth;  // guarded by lock
+
+    Lane(String target) {
+      this.target = target;
+
+      String prefix = "lane." + target + ".";
+
+      Metrics.gauge(prefix + "depth", this::depth);
+      Metrics.gauge(prefix + "max-depth", this::maxDepth);
+
+      this.executed = Metrics.counter(prefix + "executed");
+      this.coalesced = Metrics.counter(prefix + "coalesced");
+      this.forwarded = Metrics.counter(prefix + "forwarded");
+      this.rejected = Metrics.counter(prefix + "rejected");
+      this.waitNanos = Metrics.counter(prefix + "wait-nanos");
+      this.runNanos = Metrics.counter(prefix + "run-nanos");
+
+      Thread.ofVirtual().name("lane:" + target).start(this::run);
+    }
+
+    CompletableFuture<Void> submit(Object key, Trace trace, LongSupplier admission, IntFunction<CompletableFuture<Void>> function) {
+      lock.lock();
+
+      try {
+        Task last = queue.peekLast();
+
+        if(key != null && last != null && key.equals(last.key)) {
+          last.count++;
+          coalesced.increment();
+
+          return last.future;
+        }
+
+        long admissionNanos;
+
+        try {
+          admissionNanos = admission.getAsLong();  // on submission, so tasks queued behind each other accumulate their waits
+        }
+        catch(RejectedExecutionException e) {
+          rejected.increment();
+
+          return CompletableFuture.failedFuture(e);
+        }
+
+        Task task = new Task(key, trace, admissionNanos, function);
+
+        queue.add(task);
+        maxDepth = Math.max(maxDepth, queue.size());
+        notEmpty.signal();
+
+        return task.future;
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private long depth() {
+      lock.lock();
+
+      try {
+        return queue.size();
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private long maxDepth() {
+      lock.lock();
+
+      try {
+        return maxDepth;
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private Task take() throws InterruptedException {
+      lock.lock();
+
+      try {
+        while(queue.isEmpty()) {
+          notEmpty.await();
+        }
+
+        return queue.poll();  // once removed, a task can no longer be coalesced
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+
+    private void run() {
+      for(;;) {
+        try {
+          Task task = take();
+
+          awaitAdmission(task);
+
+          long startNanos = System.nanoTime();
+          HandlerEvent event = HandlerEvent.start(task.trace, startNanos - task.submitNanos);
+
+          waitNanos.add(startNanos - task.submitNanos);
+
+          if(task.key != null) {
+            forwarded.increment();
+          }
+
+          try {
+            task.function.apply(task.count).whenComplete((v, t) -> {
+              event.complete(target, task.count, t != null);
+
+              if(t == null) {
+                task.future.complete(null);
+              }
+              else {
+                fail(task, t);
+              }
+            });
+          }
+          catch(Exception e) {
+            event.complete(target, task.count, true);
+            fail(task, e);
+          }
+          finally {
+            executed.increment();
+            runNanos.add(System.nanoTime() - startNanos);
+          }
+        }
+        catch(InterruptedException e) {
+          LOGGER.log(Level.WARNING, "Lane " + target + " was interrupted, continuing");
+        }
+      }
+    }
+
+    // Parks the lane until the task is admitted; the lane only holds tasks queued after it:
+    private static void awaitAdmission(Task task) {
+      long deadline = task.submitNanos + task.admissionNanos;
+
+      for(long remaining = task.admissionNanos; remaining > 0; remaining = deadline - System.nanoTime()) {
+        LockSupport.parkNanos(remaining);
+      }
+    }
+
+    private void fail(Task task, Throwable t) {
+      LOGGER.log(Level.WARNING, "Action for " + target + " failed: " + Throwables.formatAsOneLine(t));
+
+      task.future.completeExceptionally(t);
+    }
+  }
+}
@@ -8,37 +8,37 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 
-import java.io.File;
 import java.io.IOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
-import java.lang.invoke.MethodHandle;
-import java.lang.invoke.MethodHandles;
-import java.lang.invoke.MethodType;
-import java.net.URI;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Optional;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.function.Consumer;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
-import org.int4.nexus.core.api.Action;
-import org.int4.nexus.core.api.ActionHandler;
-import org.int4.nexus.core.api.Connector;
+import org.int4.nexus.core.journal.InputJournal;
+import org.int4.nexus.core.state.StateFile;
+import org.int4.nexus.core.util.FileWatcher;
 import org.int4.nexus.core.util.GlobalLoggerSetup;
+import org.int4.nexus.core.util.Metrics;
 import org.int4.nexus.core.util.Throwables;
 
-// TODO Support YAML reloading so software may not need to be altered to reconfigure
-
 public class Main {
   private static final YAMLFactory YAML_FACTORY = new YAMLFactory();
   private static final ObjectMapper OBJECT_MAPPER;
   private static final Logger LOGGER = System.getLogger(Main.class.getName());
+  private static final Duration METRICS_INTERVAL = Duration.ofMinutes(1);
+  private static final Duration CONFIGURATION_SETTLE_TIME = Duration.ofMillis(500);
+  private static final Path CONFIGURATION_PATH = Path.of("nexus.yaml");
+  private static final String JOURNAL_DIRECTORY_PROPERTY = "nexus.journal";
+  private static final String STATE_FILE_PROPERTY = "nexus.state";
+  private static final String DEFAULT_STATE_FILE = "nexus.state";
+  private static final DateTimeFormatter JOURNAL_NAME_FORMATTER = DateTimeFormatter.ofPattern("'input-'yyyyMMdd-HHmmss'.journal'");
 
   static {
     OBJECT_MAPPER = new ObjectMapper(YAML_FACTORY)
@@ -47,229 +47,94 @@ public class Main {
     OBJECT_MAPPER
       .configOverride(Map.class)
       .setSetterInfo(JsonSetter.Value.forValueNulls(Nulls.AS_EMPTY));
+
+    OBJECT_MAPPER
+      .configOverride(List.class)
+      .setSetterInfo(JsonSetter.Value.forValueNulls(Nulls.AS_EMPTY));
   }
 
   public static void main(String[] args) throws StreamReadException, DatabindException, IOException {
     GlobalLoggerSetup.setupLogging();
 
-    Configuration config = OBJECT_MAPPER.readValue(new File("nexus.yaml"), Configuration.class);
-
-    LOGGER.log(Level.DEBUG, Util.makePretty(config.toString()));
-
-    InputHandler handler = new InputHandler(config);
-
-    for(Map.Entry<String, Template> entry : config.templates().entrySet()) {
-      handler.register(entry.getKey(), new TemplateHandler(entry.getValue()));
-    }
-
-    handler.register("device", new DeviceHandler(config.devices()));
-    handler.register("delay", new DelayActionHandler());
+    Configuration config = readConfiguration(CONFIGURATION_PATH);
+    ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> Thread.ofPlatform().name("scheduler").daemon().unstarted(r));
+    LaneExecutor laneExecutor = new LaneExecutor();
+    DelayScheduler delayScheduler = new DelayScheduler(scheduler);
 
-    CommandProcessor commandProcessor = new CommandProcessor(handler::process);
+    Thread.ofVirtual().name("metrics").start(Main::reportMetrics);
 
-    new Thread(commandProcessor).start();
+    Nexus nexus = new Nexus(OBJECT_MAPPER, zoneId -> new ZoneRuntime(zoneId, laneExecutor, delayScheduler, openStateFile(zoneId)), createJournal());
 
-    Consumer<URI> sink = uri -> {
-      LOGGER.log(Level.INFO, "Received input event: " + uri);
+    nexus.apply(config);
 
+    FileWatcher.watch(CONFIGURATION_PATH, CONFIGURATION_SETTLE_TIME, () -> {
       try {
-        if(!commandProcessor.queue.offer(uri, 50, TimeUnit.MILLISECONDS)) {
-          LOGGER.log(Level.DEBUG, "Not ready, ignoring command: " + uri);
-        }
-      }
-      catch(InterruptedException e) {
-        Thread.currentThread().interrupt();
-      }
-    };
+        LOGGER.log(Level.INFO, "Reloading configuration " + CONFIGURATION_PATH);
 
-    for(Entry<String, List<Map<String, Object>>> entry : config.connectors().entrySet()) {
-      try {
-        MethodHandle constructor = MethodHandles.publicLookup().findConstructor(Class.forName(entry.getKey()), MethodType.methodType(void.class));
-
-        Connector connector = (Connector)constructor.invoke();
-
-        for(Map<String, Object> parameters : entry.getValue()) {
-          connector.connect(sink, parameters);
-        }
+        nexus.apply(readConfiguration(CONFIGURATION_PATH));
       }
-      catch(Throwable e) {
-        LOGGER.log(Level.WARNING, "Unable to construct connector: " + entry.getKey() + " because: " + Throwables.formatAsOneLine(e));
+      catch(IOException | RuntimeException e) {
+        LOGGER.log(Level.WARNING, "Unable to reload configuration, keeping current configuration: " + Throwables.formatAsOneLine(e));
       }
-    }
-
-    for(Entry<String, List<Map<String, Object>>> entry : config.handlers().entrySet()) {
-      try {
-        Class<?> parametersClass = findClass(entry.getKey() + "$Parameters").orElse(null);
-        MethodType methodType = parametersClass == null ? MethodType.methodType(void.class) : MethodType.methodType(void.class, parametersClass);
-        MethodHandle constructor = MethodHandles.publicLookup().findConstructor(Class.forName(entry.getKey()), methodType);
-
-        for(Map<String, Object> parameters : entry.getValue()) {
-          ActionHandler actionHandler = parametersClass == null
-            ? (ActionHandler)constructor.invoke()
-            : (ActionHandler)constructor.invoke(OBJECT_MAPPER.convertValue(parameters, parametersClass));
-
-          handler.register((String)parameters.get("id"), actionHandler);
-        }
-      }
-      catch(Throwable e) {
-        LOGGER.log(Level.WARNING, "Unable to construct handler: " + entry.getKey() + " because: " + Throwables.formatAsOneLine(e));
-      }
-    }
+    });
   }
 
-  static Optional<Class<?>> findClass(String name) {
-    try {
-      return Optional.of(Class.forName(name));
-    }
-    catch(ClassNotFoundException e) {
-      return Optional.empty();
-    }
-  }
-
-  static class CommandProcessor implements Runnable {
-    public final BlockingQueue<URI> queue = new ArrayBlockingQueue<>(1);
-
-    private final Consumer<URI> sink;
-
-    public CommandProcessor(Consumer<URI> sink) {
-      this.sink = sink;
-    }
+  private static InputJournal createJournal() throws IOException {
+    String directory = System.getProperty(JOURNAL_DIRECTORY_PROPERTY);
 
-    @Override
-    public void run() {
-      for(;;) {
-        try {
-          sink.accept(queue.take());
-        }
-        catch(InterruptedException e) {
-          e.printStackTrace();
-        }
-      }
+    if(directory == null) {
+      return null;
     }
-  }
-
-  static class InputHandler {
-    private final Configuration config;
-    private final Map<URI, Action> deviceMappings = new HashMap<>();
-    private final Map<String, Device> participantMappings = new HashMap<>();
-    private final List<Device> activeDevices = new ArrayList<>();  // List for predictable order
 
-    private Activity currentActivity;
+    Path path = Files.createDirectories(Path.of(directory)).resolve(JOURNAL_NAME_FORMATTER.format(LocalDateTime.now()));
+    InputJournal journal = InputJournal.create(path);
 
-    public InputHandler(Configuration config) {
-      this.config = config;
+    Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
 
-      for(Device device : config.devices()) {
-        for(Map.Entry<String, Action> mapping : device.mappings().entrySet()) {
-          deviceMappings.put(URI.create(device.id() + ":" + mapping.getKey()), mapping.getValue());
-        }
+    return journal;
+  }
 
-        participantMappings.put(device.id(), device);
-      }
-    }
+  private static StateFile openStateFile(String zoneId) {
+    Path path = Path.of(System.getProperty(STATE_FILE_PROPERTY, DEFAULT_STATE_FILE));
 
-    private final Map<String, ActionHandler> actionHandlers = new HashMap<>();
+    if(!zoneId.equals(Zone.DEFAULT_ID)) {
+      String name = path.getFileName().toString();
+      int dot = name.lastIndexOf('.');
 
-    void register(String scheme, ActionHandler handler) {
-      actionHandlers.put(scheme, handler);
+      path = path.resolveSibling(dot <= 0 ? name + "." + zoneId : name.substring(0, dot) + "." + zoneId + name.substring(dot));
     }
 
-    void process(URI input) {
-      // First convert to mapping:
-      Action action = config.inputMappings().get(input);
-
-      if(action == null) {
-        return;
-      }
-
-      if(action.uri().getScheme().equals("activity")) {
-        if(action.uri().getSchemeSpecificPart().equals("off")) {
-          setParticipants(List.of());
-        }
-        else if(action.uri().getSchemeSpecificPart().startsWith("switch:")) {
-
-          // Find and possibly activate new activity
-          for(Activity activity : config.activities()) {
-            if(activity.id().equals(action.uri().getSchemeSpecificPart().substring(7))) {
-              setParticipants(activity.participants());
-
-              LOGGER.log(Level.INFO, "Setting up activity " + activity.id());
-
-              doSteps(activity.setup());
-              currentActivity = activity;
-              break;
-            }
-          }
-        }
-      }
-      else {
-        executeAction(action);
-      }
+    try {
+      return StateFile.open(path);
     }
+    catch(IOException e) {
+      LOGGER.log(Level.WARNING, "Unable to open state file, state will not be kept across restarts: " + Throwables.formatAsOneLine(e));
 
-    void setParticipants(List<Device> participants) {
-      for(Device participant : participants) {
-        if(!activeDevices.contains(participant)) {
-          LOGGER.log(Level.INFO, "Activating " + participant.id());
-
-          doSteps(participant.activation());
-        }
-      }
-
-      List<Device> superfluousDevices = new ArrayList<>(activeDevices);
-
-      superfluousDevices.removeAll(participants);
-
-      activeDevices.clear();
-      activeDevices.addAll(participants);
-
-      for(Device device : superfluousDevices) {
-        LOGGER.log(Level.INFO, "Deactivating " + device.id());
-
-        doSteps(device.deactivation());
-      }
+      return null;
     }
+  }
 
-    // Converts the cmd scheme recursively until a non-cmd scheme is found:
-
-    void executeAction(Action action) {
-      Action a = action;
-
-      for(;;) {
-        LOGGER.log(Level.INFO, "  -> " + a.uri());
-
-        String scheme = a.uri().getScheme();
-
-        if(scheme.equals("cmd") && currentActivity != null) {
-          Action cmd = currentActivity.mappings().get(a.uri().getSchemeSpecificPart());
-
-          if(cmd != null) {
-            a = cmd;
-            continue;
-          }
-        }
+  private static Configuration readConfiguration(Path path) throws StreamReadException, DatabindException, IOException {
+    Configuration config = OBJECT_MAPPER.readValue(path.toFile(), Configuration.class);
 
-        ActionHandler actionHandler = actionHandlers.get(scheme);
+    LOGGER.log(Level.DEBUG, Util.makePretty(config.toString()));
 
-        if(actionHandler != null) {
-          a = actionHandler.handle(a).orElse(null);
+    return config;
+  }
 
-          if(a == null) {
-            break;
-          }
+  private static void reportMetrics() {
+    for(;;) {
+      try {
+        Thread.sleep(METRICS_INTERVAL);
 
-          continue;
-        }
+        StringBuilder builder = new StringBuilder("Metrics:");
 
-        LOGGER.log(Level.INFO, "No handler for " + action);
+        Metrics.snapshot().forEach((k, v) -> builder.append("\n").append(k).append(" = ").append(v));
 
-        break;
+        LOGGER.log(Level.DEBUG, builder.toString());
       }
-    }
-
-    void doSteps(List<Action> steps) {
-      for(Action action : steps) {
-        executeAction(action);
+      catch(InterruptedException e) {
+        return;
       }
     }
   }
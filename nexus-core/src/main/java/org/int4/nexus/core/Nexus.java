@@ -0,0 +1,396 @@
+package org.int4.nexus.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.int4.nexus.core.IngressQueue.AdmissionPolicy;
+import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.api.Connection;
+import org.int4.nexus.core.api.Connector;
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.connector.JournalReplayConnector;
+import org.int4.nexus.core.journal.InputJournal;
+import org.int4.nexus.core.util.Throwables;
+
+class Nexus {
+  private static final Logger LOGGER = System.getLogger(Nexus.class.getName());
+  private static final String DEFAULT_QUEUE_POLICY = "drop-oldest";
+  private static final int DEFAULT_QUEUE_CAPACITY = 8;
+  private static final int DEFAULT_QUEUE_WEIGHT = 1;
+
+  private final ObjectMapper objectMapper;
+  private final Function<String, ZoneRuntime> zoneFactory;
+  private final InputJournal journal;
+  private final Map<String, Connector> connectors = new HashMap<>();
+  private final Map<Component, Connection> connections = new HashMap<>();
+  private final Map<Component, String> connectionZones = new HashMap<>();
+  private final Map<String, ZoneRuntime> zones = new HashMap<>();
+  private final Map<String, Component> handlerComponents = new HashMap<>();
+  private final Map<String, ActionHandler> handlers = new HashMap<>();
+
+  private Configuration config = Configuration.EMPTY;
+  private Map<String, InputCodec> codecs = Map.of();
+
+  record Component(String className, Map<String, Object> parameters) {}
+
+  Nexus(ObjectMapper objectMapper, Function<String, ZoneRuntime> zoneFactory, InputJournal journal) {
+    this.objectMapper = objectMapper;
+    this.zoneFactory = zoneFactory;
+    this.journal = journal;
+  }
+
+  synchronized void apply(Configuration newConfig) {
+    Map<String, Configuration> zoneConfigs = zoneConfigurations(newConfig);
+    Map<String, ActionHandler> newHandlers = new HashMap<>(handlers);
+    List<ActionHandler> obsoleteHandlers = new ArrayList<>();
+
+    // Templates:
+    for(String id : config.templates().keySet()) {
+      if(!newConfig.templates().containsKey(id)) {
+        newHandlers.remove(id);
+      }
+    }
+
+    for(Map.Entry<String, Template> entry : newConfig.templates().entrySet()) {
+      if(!entry.getValue().equals(config.templates().get(entry.getKey()))) {
+        newHandlers.put(entry.getKey(), new TemplateHandler(entry.getValue()));
+      }
+    }
+
+    // Devices:
+    if(!newConfig.devices().equals(config.devices())) {
+      newHandlers.put("device", new DeviceHandler(newConfig.devices()));
+    }
+
+    // Handlers:
+    Map<String, Component> newHandlerComponents = components(newConfig.handlers());  // keyed by id
+
+    Map<String, Component> appliedHandlerComponents = new HashMap<>(newHandlerComponents);
+
+    for(String id : handlerComponents.keySet()) {
+      if(!newHandlerComponents.containsKey(id)) {
+        obsoleteHandlers.add(newHandlers.remove(id));
+      }
+    }
+
+    // A handler which can't be created is tried again on the next reload, while a running one is kept until then:
+    for(Map.Entry<String, Component> entry : newHandlerComponents.entrySet()) {
+      Component oldComponent = handlerComponents.get(entry.getKey());
+
+      if(!entry.getValue().equals(oldComponent)) {
+        Optional<ActionHandler> handler = createHandler(entry.getValue());
+
+        if(handler.isPresent()) {
+          obsoleteHandlers.add(newHandlers.put(entry.getKey(), handler.get()));
+        }
+        else if(oldComponent == null) {
+          appliedHandlerComponents.remove(entry.getKey());
+        }
+        else {
+          LOGGER.log(Level.WARNING, "Keeping the running handler " + entry.getKey() + " until its new configuration can be applied");
+
+          appliedHandlerComponents.put(entry.getKey(), oldComponent);
+        }
+      }
+    }
+
+    // Codecs of the connectors, so inputs they supply as keys can be matched:
+    Map<String, InputCodec> codecs = new HashMap<>();
+
+    for(String className : newConfig.connectors().keySet()) {
+      connector(className).flatMap(Connector::codec).ifPresent(codec -> codecs.put(codec.scheme(), codec));
+    }
+
+    try {
+      swap(zoneConfigs, newHandlers, codecs);
+    }
+    catch(RuntimeException e) {
+      newHandlers.values().stream().filter(handler -> !handlers.containsValue(handler)).forEach(Nexus::close);
+
+      throw e;
+    }
+
+    obsoleteHandlers.stream().filter(Objects::nonNull).forEach(Nexus::close);
+
+    handlers.clear();
+    handlers.putAll(newHandlers);
+    handlerComponents.clear();
+    handlerComponents.putAll(appliedHandlerComponents);
+    this.codecs = codecs;
+
+    // Connectors:
+    Set<Component> newConnectorComponents = new HashSet<>();
+
+    for(Map.Entry<String, List<Map<String, Object>>> entry : newConfig.connectors().entrySet()) {
+      for(Map<String, Object> parameters : entry.getValue()) {
+        newConnectorComponents.add(new Component(entry.getKey(), parameters));
+      }
+    }
+
+    Map<String, String> zoneByConnector = new HashMap<>();
+
+    for(Zone zone : newConfig.zones()) {
+      zone.connectors().forEach(id -> zoneByConnector.put(id, zone.id()));
+    }
+
+    Function<Component, String> zoneOf = component -> newConfig.zones().isEmpty() ? Zone.DEFAULT_ID : zoneByConnector.get(connectorId(component));
+
+    Map<String, Set<String>> disconnectedSources = new HashMap<>();  // connector ids by zone id
+
+    // Connectors which moved to another zone are connected again:
+    connections.entrySet().removeIf(e -> {
+      if(newConnectorComponents.contains(e.getKey()) && Objects.equals(zoneOf.apply(e.getKey()), connectionZones.get(e.getKey()))) {
+        return false;
+      }
+
+      LOGGER.log(Level.INFO, "Disconnecting " + e.getKey().className() + " " + e.getKey().parameters());
+
+      close(e.getValue());
+      disconnectedSources.computeIfAbsent(connectionZones.remove(e.getKey()), k -> new HashSet<>()).add(connectorId(e.getKey()));
+
+      return true;
+    });
+
+    for(Component component : newConnectorComponents) {
+      if(!connections.containsKey(component)) {
+        String zoneId = zoneOf.apply(component);
+
+        if(zoneId == null) {
+          LOGGER.log(Level.WARNING, "Connector " + connectorId(component) + " is not part of any zone, it will not be connected");
+        }
+        else {
+          connect(component, zones.get(zoneId));
+        }
+      }
+    }
+
+    // Sources which are no longer used by any connector of their zone:
+    disconnectedSources.forEach((zoneId, ids) -> ids.stream()
+      .filter(id -> connectionZones.entrySet().stream().noneMatch(e -> e.getValue().equals(zoneId) && connectorId(e.getKey()).equals(id)))
+      .forEach(id -> zones.get(zoneId).commandProcessor().removeSource(id))
+    );
+
+    // Zones which are no longer configured, after their connectors were disconnected:
+    zones.entrySet().removeIf(e -> {
+      if(zoneConfigs.containsKey(e.getKey())) {
+        return false;
+      }
+
+      LOGGER.log(Level.INFO, "Stopping zone " + e.getKey());
+
+      e.getValue().close();
+
+      return true;
+    });
+
+    config = newConfig;
+  }
+
+  // Swaps on the command processor of each zone, so inputs queued before the swap still use the old configuration:
+  private void swap(Map<String, Configuration> zoneConfigs, Map<String, ActionHandler> newHandlers, Map<String, InputCodec> newCodecs) {
+    Map<String, Configuration> oldZoneConfigs = zoneConfigurations(config);
+    List<String> swapped = new ArrayList<>();
+
+    try {
+      for(Map.Entry<String, Configuration> entry : zoneConfigs.entrySet()) {
+        ZoneRuntime zone = zones.computeIfAbsent(entry.getKey(), zoneFactory);
+
+        reconfigure(zone, entry.getValue(), newHandlers, newCodecs);
+        swapped.add(entry.getKey());
+      }
+    }
+    catch(RuntimeException e) {
+      for(String zoneId : swapped) {
+        if(oldZoneConfigs.containsKey(zoneId)) {
+          reconfigure(zones.get(zoneId), oldZoneConfigs.get(zoneId), handlers, codecs);
+        }
+      }
+
+      zones.entrySet().removeIf(entry -> {
+        if(oldZoneConfigs.containsKey(entry.getKey())) {
+          return false;
+        }
+
+        entry.getValue().close();
+
+        return true;
+      });
+
+      throw e;
+    }
+  }
+
+  private static void reconfigure(ZoneRuntime zone, Configuration config, Map<String, ActionHandler> handlers, Map<String, InputCodec> codecs) {
+    CompletableFuture.runAsync(() -> zone.inputHandler().reconfigure(config, handlers, codecs), zone.commandProcessor()).join();
+  }
+
+  private void connect(Component component, ZoneRuntime zone) {
+    connector(component.className()).ifPresent(connector -> {
+      try {
+        String id = connectorId(component);
+        InputSink sink = createSink(id, component.parameters(), zone);
+
+        boolean journaled = journal != null && !(connector instanceof JournalReplayConnector);  // a replay would record its journal again
+
+        connections.put(component, connector.connect(journaled ? journal.wrap(id, sink) : sink, component.parameters()));
+        connectionZones.put(component, zone.id());
+      }
+      catch(Exception e) {
+        LOGGER.log(Level.WARNING, "Unable to connect connector: " + component.className() + " because: " + Throwables.formatAsOneLine(e));
+      }
+    });
+  }
+
+  private static String connectorId(Component component) {
+    return String.valueOf(component.parameters().getOrDefault("id", component.className()));
+  }
+
+  private static InputSink createSink(String id, Map<String, Object> parameters, ZoneRuntime zone) {
+    String policy = String.valueOf(parameters.getOrDefault("queue", DEFAULT_QUEUE_POLICY));
+    int capacity = ((Number)parameters.getOrDefault("queue-capacity", DEFAULT_QUEUE_CAPACITY)).intValue();
+    int weight = ((Number)parameters.getOrDefault("queue-weight", DEFAULT_QUEUE_WEIGHT)).intValue();
+
+    return new CommandSink(
+      zone.commandProcessor().source(id, AdmissionPolicy.valueOf(policy.toUpperCase(Locale.ROOT).replace('-', '_')), capacity, weight),
+      zone.inputHandler()
+    );
+  }
+
+  private static Map<String, Configuration> zoneConfigurations(Configuration config) {
+    if(config.zones().isEmpty()) {
+      return Map.of(Zone.DEFAULT_ID, config);
+    }
+
+    Map<String, Configuration> zoneConfigs = new LinkedHashMap<>();
+    Map<String, String> zoneByDevice = new HashMap<>();
+    Map<String, String> zoneByConnector = new HashMap<>();
+
+    for(Zone zone : config.zones()) {
+      List<Device> devices = config.devices().stream().filter(device -> zone.devices().contains(device.id())).toList();
+      List<Activity> activities = config.activities().stream().filter(activity -> zone.activities().contains(activity.id())).toList();
+
+      for(String id : zone.connectors()) {
+        String otherZone = zoneByConnector.putIfAbsent(id, zone.id());
+
+        if(otherZone != null) {
+          throw new IllegalArgumentException("Connector " + id + " is part of zones " + otherZone + " and " + zone.id() + ", but its inputs can only go to one zone");
+        }
+      }
+
+      for(String id : zone.devices()) {
+        String otherZone = zoneByDevice.putIfAbsent(id, zone.id());
+
+        if(otherZone != null) {
+          LOGGER.log(Level.WARNING, "Device " + id + " is part of zones " + otherZone + " and " + zone.id() + ", each zone tracks its state separately");
+        }
+      }
+
+      for(Activity activity : activities) {
+        for(Device participant : activity.participants()) {
+          if(!zone.devices().contains(participant.id())) {
+            LOGGER.log(Level.WARNING, "Activity " + activity.id() + " of zone " + zone.id() + " has participant " + participant.id() + " which is not part of the zone, it will never be deactivated");
+          }
+        }
+      }
+
+      zoneConfigs.put(zone.id(), new Configuration(config.connectors(), config.handlers(), devices, config.inputMappings(), activities, config.templates(), List.of(zone)));
+    }
+
+    return zoneConfigs;
+  }
+
+  private Optional<Connector> connector(String className) {
+    try {
+      Connector connector = connectors.get(className);
+
+      if(connector == null) {
+        MethodHandle constructor = MethodHandles.publicLookup().findConstructor(Class.forName(className), MethodType.methodType(void.class));
+
+        connector = (Connector)constructor.invoke();
+        connectors.put(className, connector);
+      }
+
+      return Optional.of(connector);
+    }
+    catch(Throwable e) {
+      LOGGER.log(Level.WARNING, "Unable to construct connector: " + className + " because: " + Throwables.formatAsOneLine(e));
+
+      return Optional.empty();
+    }
+  }
+
+  private Optional<ActionHandler> createHandler(Component component) {
+    try {
+      Class<?> parametersClass = findClass(component.className() + "$Parameters").orElse(null);
+      MethodType methodType = parametersClass == null ? MethodType.methodType(void.class) : MethodType.methodType(void.class, parametersClass);
+      MethodHandle constructor = MethodHandles.publicLookup().findConstructor(Class.forName(component.className()), methodType);
+
+      return Optional.of(parametersClass == null
+        ? (ActionHandler)constructor.invoke()
+        : (ActionHandler)constructor.invoke(objectMapper.convertValue(component.parameters(), parametersClass))
+      );
+    }
+    catch(Throwable e) {
+      LOGGER.log(Level.WARNING, "Unable to construct handler: " + component.className() + " because: " + Throwables.formatAsOneLine(e));
+
+      return Optional.empty();
+    }
+  }
+
+  private static void close(ActionHandler handler) {
+    try {
+      handler.close();
+    }
+    catch(Exception e) {
+      LOGGER.log(Level.WARNING, "Unable to close handler: " + handler + " because: " + Throwables.formatAsOneLine(e));
+    }
+  }
+
+  private static void close(Connection connection) {
+    try {
+      connection.close();
+    }
+    catch(Exception e) {
+      LOGGER.log(Level.WARNING, "Unable to close connection: " + connection + " because: " + Throwables.formatAsOneLine(e));
+    }
+  }
+
+  private static Map<String, Component> components(Map<String, List<Map<String, Object>>> definitions) {
+    Map<String, Component> components = new HashMap<>();
+
+    for(Map.Entry<String, List<Map<String, Object>>> entry : definitions.entrySet()) {
+      for(Map<String, Object> parameters : entry.getValue()) {
+        components.put((String)parameters.get("id"), new Component(entry.getKey(), parameters));
+      }
+    }
+
+    return components;
+  }
+
+  private static Optional<Class<?>> findClass(String name) {
+    try {
+      return Optional.of(Class.forName(name));
+    }
+    catch(ClassNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+}
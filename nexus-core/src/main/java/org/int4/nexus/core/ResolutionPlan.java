@@ -0,0 +1,12 @@
+package org.int4.nexus.core;
+
+import java.util.List;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.TerminalActionHandler;
+
+record ResolutionPlan(Action action, TerminalActionHandler handler, List<String> hops, String problem, List<StateChange> stateChanges) {
+  boolean isTerminal() {
+    return handler != null;
+  }
+}
@@ -0,0 +1,8 @@
+package org.int4.nexus.core;
+
+record StateChange(String deviceId, String property, String value) {
+  @Override
+  public String toString() {
+    return deviceId + " " + property + " " + value;
+  }
+}
@@ -0,0 +1,6 @@
+package org.int4.nexus.core;
+
+import org.int4.nexus.core.api.ActionHandler;
+
+interface StaticActionHandler extends ActionHandler {
+}
@@ -3,60 +3,152 @@ package org.int4.nexus.core;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.int4.nexus.core.api.Action;
-import org.int4.nexus.core.api.ActionHandler;
 
-class TemplateHandler implements ActionHandler {
+class TemplateHandler implements StaticActionHandler {
+  private static final Pattern PARAMETER = Pattern.compile("<(\\w+)>");
+  private static final int CACHE_SIZE = 1024;
+
   private final Template template;
   private final Pattern pattern;
+  private final Segment[] actionSegments;
+  private final Segment[] payloadSegments;
+  private final Map<String, Optional<Action>> cache = new LinkedHashMap<>(16, 0.75f, true) {  // guarded by itself
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Optional<Action>> eldest) {
+      return size() > CACHE_SIZE;
+    }
+  };
+
+  private record Segment(String text, int group, boolean encoded) {}
 
   public TemplateHandler(Template template) {
     this.template = template;
-    this.pattern = Pattern.compile(template.template()
-      .replaceAll("<(\\w+)>", "(?<$1>[^:]+)") // Match keys in angle brackets
-    );
+    this.pattern = Pattern.compile(PARAMETER.matcher(template.template()).replaceAll("(?<$1>[^:]+)"));  // Match keys in angle brackets
+
+    List<Segment> segments = new ArrayList<>();
+
+    compile(template.action(), false, segments);
+
+    if(template.query() != null) {
+      boolean first = true;
+
+      for(Map.Entry<String, String> entry : template.query().entrySet()) {
+        segments.add(new Segment((first ? "?" : "&") + entry.getKey() + "=", 0, false));
+        compile(entry.getValue(), true, segments);
+        first = false;
+      }
+    }
+
+    this.actionSegments = merge(segments);
+    this.payloadSegments = template.payload() == null ? null : compile(template.payload());
   }
 
   @Override
   public Optional<Action> handle(Action action) {
     String input = action.uri().getSchemeSpecificPart();
+    Optional<Action> result;
+
+    synchronized(cache) {
+      result = cache.get(input);
+    }
+
+    if(result == null) {
+      result = Optional.of(expand(action, input));
+
+      synchronized(cache) {
+        cache.put(input, result);
+      }
+    }
+
+    return result;
+  }
+
+  private Action expand(Action action, String input) {
     Matcher m = pattern.matcher(input);
 
     if(!m.matches()) {
       throw new IllegalArgumentException("Action \"" + action.uri() + "\" did not match template \"" + template.template() + "\"");
     }
 
-    String a = applyTemplatedParameters(m, template.action());
-    String p = applyTemplatedParameters(m, template.payload());
+    return new Action(URI.create(expand(m, actionSegments)), template.method(), payloadSegments == null ? null : expand(m, payloadSegments));
+  }
 
-    if(template.query() != null) {
-      boolean first = true;
+  private static String expand(Matcher m, Segment[] segments) {
+    StringBuilder builder = new StringBuilder();
 
-      for(Map.Entry<String, String> entry : template.query().entrySet()) {
-        a += (first ? "?" : "&") + entry.getKey() + "=" + URLEncoder.encode(applyTemplatedParameters(m, entry.getValue()), StandardCharsets.UTF_8);
-        first = false;
+    for(Segment segment : segments) {
+      if(segment.group == 0) {
+        builder.append(segment.text);
+      }
+      else {
+        String value = m.group(segment.group);
+
+        builder.append(segment.encoded ? URLEncoder.encode(value, StandardCharsets.UTF_8) : value);
       }
     }
 
-    return Optional.of(new Action(URI.create(a), template.method(), p));
+    return builder.toString();
+  }
+
+  private Segment[] compile(String text) {
+    List<Segment> segments = new ArrayList<>();
+
+    compile(text, false, segments);
+
+    return merge(segments);
   }
 
-  private static String applyTemplatedParameters(Matcher m, String input) {
-    if(input == null) {
-      return null;
+  // Splits text into segments; placeholders which are not parameters of the template are kept as literal text:
+  private void compile(String text, boolean encoded, List<Segment> segments) {
+    Map<String, Integer> groups = pattern.namedGroups();
+    Matcher m = PARAMETER.matcher(text);
+    int start = 0;
+
+    while(m.find()) {
+      Integer group = groups.get(m.group(1));
+
+      if(group != null) {
+        segments.add(literal(text.substring(start, m.start()), encoded));
+        segments.add(new Segment(null, group, encoded));
+        start = m.end();
+      }
     }
 
-    String templatedInput = input;
+    segments.add(literal(text.substring(start), encoded));
+  }
+
+  private static Segment literal(String text, boolean encoded) {
+    return new Segment(encoded ? URLEncoder.encode(text, StandardCharsets.UTF_8) : text, 0, false);
+  }
+
+  // Joins adjacent literals, and drops empty ones:
+  private static Segment[] merge(List<Segment> segments) {
+    List<Segment> merged = new ArrayList<>();
 
-    for(String name : m.namedGroups().keySet()) {
-      templatedInput = templatedInput.replace("<" + name + ">", m.group(name));
+    for(Segment segment : segments) {
+      Segment last = merged.isEmpty() ? null : merged.getLast();
+
+      if(segment.group == 0 && segment.text.isEmpty()) {
+        continue;
+      }
+
+      if(segment.group == 0 && last != null && last.group == 0) {
+        merged.set(merged.size() - 1, new Segment(last.text + segment.text, 0, false));
+      }
+      else {
+        merged.add(segment);
+      }
     }
 
-    return templatedInput;
+    return merged.toArray(Segment[]::new);
   }
 }
@@ -0,0 +1,47 @@
+package org.int4.nexus.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+class Timeline {
+  private final String title;
+  private final long startNanos = System.nanoTime();
+  private final List<Span> spans = new ArrayList<>();  // guarded by this
+
+  private record Span(String label, long startNanos, long endNanos, boolean failed) {}
+
+  Timeline(String title) {
+    this.title = title;
+  }
+
+  CompletableFuture<Void> record(String label, Supplier<CompletableFuture<Void>> sequence) {
+    long start = System.nanoTime();
+
+    return sequence.get().whenComplete((v, t) -> add(new Span(label, start, System.nanoTime(), t != null)));
+  }
+
+  synchronized String format() {
+    StringBuilder builder = new StringBuilder(title).append(" took ").append(millis(System.nanoTime())).append(" ms:");
+
+    spans.stream().sorted(Comparator.comparingLong(Span::startNanos)).forEach(span -> builder
+      .append("\n  ")
+      .append("%+6d ms .. %+6d ms  ".formatted(millis(span.startNanos), millis(span.endNanos)))
+      .append(span.label)
+      .append(span.failed ? " (failed)" : "")
+    );
+
+    return builder.toString();
+  }
+
+  private synchronized void add(Span span) {
+    spans.add(span);
+  }
+
+  private long millis(long nanos) {
+    return TimeUnit.NANOSECONDS.toMillis(nanos - startNanos);
+  }
+}
@@ -0,0 +1,13 @@
+package org.int4.nexus.core;
+
+import java.util.List;
+
+record Zone(
+  String id,
+  List<String> connectors,
+  List<String> devices,
+  List<String> activities
+) {
+
+  static final String DEFAULT_ID = "default";
+}
@@ -0,0 +1,57 @@
+package org.int4.nexus.core;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.state.StateFile;
+import org.int4.nexus.core.util.Throwables;
+
+class ZoneRuntime implements AutoCloseable {
+  private static final Logger LOGGER = System.getLogger(ZoneRuntime.class.getName());
+
+  private final String id;
+  private final CommandProcessor commandProcessor = new CommandProcessor();
+  private final InputHandler inputHandler;
+  private final StateFile stateFile;
+  private final Thread thread;
+
+  ZoneRuntime(String id, LaneExecutor laneExecutor, DelayScheduler delayScheduler, StateFile stateFile) {
+    this.id = id;
+    this.inputHandler = new InputHandler(commandProcessor, laneExecutor, delayScheduler, stateFile);
+    this.stateFile = stateFile;
+    this.thread = Thread.ofPlatform().name("command-processor:" + id).start(commandProcessor);
+  }
+
+  String id() {
+    return id;
+  }
+
+  CommandProcessor commandProcessor() {
+    return commandProcessor;
+  }
+
+  InputHandler inputHandler() {
+    return inputHandler;
+  }
+
+  @Override
+  public void close() {
+    thread.interrupt();
+
+    try {
+      thread.join(TimeUnit.SECONDS.toMillis(5));
+
+      if(stateFile != null) {
+        stateFile.close();
+      }
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    catch(IOException e) {
+      LOGGER.log(Level.WARNING, "Unable to close state file of zone " + id + ": " + Throwables.formatAsOneLine(e));
+    }
+  }
+}
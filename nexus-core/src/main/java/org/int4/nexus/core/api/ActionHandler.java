@@ -4,4 +4,7 @@ import java.util.Optional;
 
 public interface ActionHandler {
   Optional<Action> handle(Action action);
+
+  default void close() {
+  }
 }
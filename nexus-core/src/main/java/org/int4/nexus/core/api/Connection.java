@@ -0,0 +1,7 @@
+package org.int4.nexus.core.api;
+
+public interface Connection extends AutoCloseable {
+
+  @Override
+  void close();
+}
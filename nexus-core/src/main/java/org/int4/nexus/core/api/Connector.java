@@ -1,9 +1,12 @@
 package org.int4.nexus.core.api;
 
-import java.net.URI;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.Optional;
 
 public interface Connector {
-  void connect(Consumer<URI> sink, Map<String, Object> parameters) throws ConnectionException;
+  Connection connect(InputSink sink, Map<String, Object> parameters) throws ConnectionException;
+
+  default Optional<InputCodec> codec() {
+    return Optional.empty();
+  }
 }
@@ -0,0 +1,15 @@
+package org.int4.nexus.core.api;
+
+import java.net.URI;
+
+public interface InputCodec {
+
+  // Keys of all codecs are matched in one table, so the top bits of a key hold a tag unique to its codec
+  long TAG_MASK = 0b11L << 62;
+
+  String scheme();
+
+  long[] encode(URI input);
+
+  URI decode(long key);
+}
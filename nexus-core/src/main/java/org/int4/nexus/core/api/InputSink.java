@@ -0,0 +1,24 @@
+package org.int4.nexus.core.api;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface InputSink extends Consumer<URI> {
+
+  default void acceptAll(List<URI> inputs) {
+    inputs.forEach(this::accept);
+  }
+
+  // The caller may reuse the array once this returns
+  default void acceptKeys(long[] keys, int count, InputCodec codec) {
+    List<URI> inputs = new ArrayList<>(count);
+
+    for(int i = 0; i < count; i++) {
+      inputs.add(codec.decode(keys[i]));
+    }
+
+    acceptAll(inputs);
+  }
+}
@@ -1,6 +1,8 @@
 package org.int4.nexus.core.api;
 
+import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 public interface TerminalActionHandler extends ActionHandler {
   @Override
@@ -11,4 +13,27 @@ public interface TerminalActionHandler extends ActionHandler {
   }
 
   void accept(Action action);
+
+  // The action is dispatched when this returns, after which the next action for the same target may start
+  default CompletableFuture<Void> submit(Action action) {
+    accept(action);
+
+    return CompletableFuture.completedFuture(null);
+  }
+
+  // Called at most once per target for actions known in advance, like to set up a connection; must not block
+  default void prepare(Action action) {
+  }
+
+  // Returns the nanoseconds the action must wait before it may start, or throws RejectedExecutionException to drop it
+  default long admit(Action action) {
+    return 0;
+  }
+
+  // Actions with the same target are executed in order, actions for different targets may run concurrently
+  default String target(Action action) {
+    URI uri = action.uri();
+
+    return uri.getAuthority() == null ? uri.getScheme() : uri.getScheme() + "://" + uri.getAuthority();
+  }
 }
@@ -0,0 +1,118 @@
+package org.int4.nexus.core.connector;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+
+class BtsnoopReader {
+  private static final long MAGIC = 0x6274736E6F6F7000L;  // "btsnoop\0"
+  private static final int HEADER_SIZE = 16;
+  private static final int RECORD_HEADER_SIZE = 24;
+  private static final int DATALINK_UNENCAPSULATED = 1001;
+  private static final int DATALINK_H4 = 1002;
+  private static final int FLAG_RECEIVED = 1;
+  private static final int FLAG_COMMAND_OR_EVENT = 2;
+  private static final byte H4_ACL_DATA = 0x02;
+  private static final byte H4_EVENT = 0x04;
+
+  private final ReadableByteChannel channel;
+  private final ByteBuffer buffer;  // in read mode: unprocessed bytes are between position and limit
+  private final ByteBuffer packet;
+
+  private int datalink;
+  private long timestampMicros;
+
+  BtsnoopReader(ReadableByteChannel channel, int bufferSize) {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocateDirect(bufferSize).limit(0);
+    this.packet = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);  // HCI is little endian, btsnoop is big endian
+  }
+
+  // The returned buffer is only valid until the next call
+  ByteBuffer next() throws IOException {
+    if(datalink == 0) {
+      readHeader();
+    }
+
+    for(;;) {
+      if(!fill(RECORD_HEADER_SIZE)) {
+        return null;
+      }
+
+      int position = buffer.position();
+      int includedLength = buffer.getInt(position + 4);
+      int flags = buffer.getInt(position + 8);
+
+      if(includedLength < 0 || includedLength > buffer.capacity() - RECORD_HEADER_SIZE) {
+        throw new IOException("Corrupt btsnoop record, length: " + includedLength);
+      }
+
+      if(!fill(RECORD_HEADER_SIZE + includedLength)) {
+        return null;  // truncated last record, the capture was probably interrupted
+      }
+
+      position = buffer.position();  // filling may have moved the record
+
+      int start = position + RECORD_HEADER_SIZE;
+
+      buffer.position(start + includedLength);
+
+      if((flags & FLAG_RECEIVED) == 0) {
+        continue;
+      }
+
+      timestampMicros = buffer.getLong(position + 16);
+
+      if(datalink == DATALINK_UNENCAPSULATED) {  // the packet type is only in the flags; store it in the last byte of the record header, which was processed already
+        buffer.put(--start, (flags & FLAG_COMMAND_OR_EVENT) == 0 ? H4_ACL_DATA : H4_EVENT);
+      }
+
+      packet.clear();
+
+      return packet.limit(start + includedLength + (datalink == DATALINK_UNENCAPSULATED ? 1 : 0)).position(start);
+    }
+  }
+
+  // Microseconds since midnight January 1st, 0 AD
+  long timestampMicros() {
+    return timestampMicros;
+  }
+
+  private void readHeader() throws IOException {
+    if(!fill(HEADER_SIZE)) {
+      throw new EOFException("Stream ended before btsnoop header");
+    }
+
+    if(buffer.getLong() != MAGIC) {
+      throw new IOException("Not a btsnoop stream");
+    }
+
+    int version = buffer.getInt();
+    int type = buffer.getInt();
+
+    if(version != 1 || (type != DATALINK_UNENCAPSULATED && type != DATALINK_H4)) {
+      throw new IOException("Unsupported btsnoop version " + version + " or datalink type " + type);
+    }
+
+    this.datalink = type;
+  }
+
+  // Makes sure at least the given number of unprocessed bytes are in the buffer:
+  private boolean fill(int size) throws IOException {
+    while(buffer.remaining() < size) {
+      buffer.compact();
+
+      int bytesRead = channel.read(buffer);
+
+      buffer.flip();
+
+      if(bytesRead < 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+}
@@ -1,6 +1,7 @@
 package org.int4.nexus.core.connector;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.lang.System.Logger;
@@ -8,19 +9,125 @@ import java.lang.System.Logger.Level;
 import java.net.URI;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.HexFormat;
+import java.util.List;
 import java.util.Map;
-import java.util.function.Consumer;
+import java.util.Optional;
+import java.util.concurrent.ScheduledFuture;
 
+import org.int4.nexus.core.api.Connection;
 import org.int4.nexus.core.api.ConnectionException;
 import org.int4.nexus.core.api.Connector;
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.util.Throwables;
 
 public class HciDumpConnector implements Connector {
   private static final long LONG_PRESS_NANOS = 1000 * 1000 * 1000L;
   private static final long KEY_REPEAT_DELAY_NANOS = 500 * 1000 * 1000L;
   private static final long KEY_REPEAT_INTERVAL_NANOS = 50 * 1000 * 1000L;
   private static final Logger LOGGER = System.getLogger(HciDumpConnector.class.getName());
+  private static final int BTSNOOP_BUFFER_SIZE = 64 * 1024;
+  private static final long MICROS_FROM_YEAR_0_TO_1970 = 0x00DCDDB30F2F8000L;
+
+  // Keys, from most to least significant bit: 2 bits codec tag (10), 2 bits state, 4 bits data length, 16 bits handle
+  // and 40 bits for the first five data bytes. Longer data, or data with non-zero bytes after the first five, is sent as URIs.
+  private static final List<String> STATES = List.of("pressed", "held", "long-pressed", "short-pressed");
+  private static final int STATE_PRESSED = 0;
+  private static final int STATE_HELD = 1;
+  private static final int STATE_LONG_PRESSED = 2;
+  private static final int STATE_SHORT_PRESSED = 3;
+  private static final long TAG = 2L << 62;
+  private static final int MAX_DATA_LENGTH = 15;
+  private static final int ENCODED_DATA_BYTES = 5;
+  private static final long NOT_ENCODABLE = -1;
+
+  static final InputCodec CODEC = new Codec();
+
+  private static long code(short handle, byte[] data) {
+    if(data.length > MAX_DATA_LENGTH) {
+      return NOT_ENCODABLE;
+    }
+
+    long code = TAG | (long)data.length << 56 | (handle & 0xffffL) << 40;
+
+    for(int i = 0; i < data.length; i++) {
+      if(i < ENCODED_DATA_BYTES) {
+        code |= (data[i] & 0xffL) << (32 - 8 * i);
+      }
+      else if(data[i] != 0) {
+        return NOT_ENCODABLE;
+      }
+    }
+
+    return code;
+  }
+
+  private static class Codec implements InputCodec {
+    @Override
+    public String scheme() {
+      return "hci";
+    }
+
+    @Override
+    public long[] encode(URI input) {
+      if(!input.getScheme().equals(scheme())) {
+        return new long[0];
+      }
+
+      try {
+        String[] parts = input.getSchemeSpecificPart().split(":");
+
+        if(parts.length != 3 || parts[0].length() != 4) {
+          return new long[0];
+        }
+
+        long code = code((short)HexFormat.fromHexDigits(parts[0]), HexFormat.of().parseHex(parts[1]));
+        int state = STATES.indexOf(parts[2]);
+
+        if(code == NOT_ENCODABLE || state < 0) {
+          return new long[0];
+        }
+
+        long key = code | (long)state << 60;
+
+        return decode(key).equals(input) ? new long[] {key} : new long[0];
+      }
+      catch(IllegalArgumentException e) {
+        return new long[0];
+      }
+    }
+
+    @Override
+    public URI decode(long key) {
+      int length = (int)(key >>> 56) & 0xf;
+      byte[] data = new byte[length];
+
+      for(int i = 0; i < Math.min(length, ENCODED_DATA_BYTES); i++) {
+        data[i] = (byte)(key >>> (32 - 8 * i));
+      }
+
+      return URI.create("hci:%s:%s:%s".formatted(
+        HexFormat.of().toHexDigits((short)(key >>> 40)),
+        HexFormat.of().formatHex(data),
+        STATES.get((int)(key >>> 60) & 0x3)
+      ));
+    }
+  }
+
+  record PressedKey(String text, long code) {
+    static PressedKey of(short handle, byte[] data) {
+      return new PressedKey(HexFormat.of().toHexDigits(handle) + ":" + HexFormat.of().formatHex(data), HciDumpConnector.code(handle, data));
+    }
+  }
 
   // > 02 01 2E 0B 00 07 00 04 00 1B 1F 00 41 00 00 00
 
@@ -55,39 +162,30 @@ public class HciDumpConnector implements Connector {
   //   +-- opcode (ACL Data message)
 
   static class EventHandler {
-    private final Thread longPressHandlerThread = new Thread(this::handleLongPresses);
-    private final Thread eventHandlerThread = new Thread(this::readEvents);
-    private final Consumer<URI> sink;
-    private final Process process;
+    private final InputSink sink;
+    private final KeyTimer timer;
 
     private volatile boolean ended;
 
-    private long lastPressTime;
-    private String lastPressedCode;
-    private boolean longPressSent;
-    private long nextRepeatNanos;
+    private PressedKey lastPressed;
+    private ScheduledFuture<?> repeatDeadline;  // guarded by this
+    private ScheduledFuture<?> longPressDeadline;  // guarded by this
 
-    EventHandler(Consumer<URI> sink, Process process) {
+    EventHandler(InputSink sink, KeyTimer timer) {
       this.sink = sink;
-      this.process = process;
+      this.timer = timer;
     }
 
-    void start() {
-      longPressHandlerThread.start();
-      eventHandlerThread.start();
-    }
-
-    void readEvents() {
+    void readText(InputStream input) throws IOException {
       ByteBuffer payload = ByteBuffer.allocate(256);
 
       payload.order(ByteOrder.LITTLE_ENDIAN);
 
-      try(LineNumberReader reader = new LineNumberReader(new InputStreamReader(process.getInputStream()))) {
+      try(LineNumberReader reader = new LineNumberReader(new InputStreamReader(input))) {
         for(;;) {
           String line = reader.readLine();
 
           if(line == null) {
-            LOGGER.log(Level.INFO, "EOF encountered");
             break;
           }
 
@@ -110,17 +208,38 @@ public class HciDumpConnector implements Connector {
           payload.clear();
         }
       }
-      catch(IOException e) {
-        throw new IllegalStateException("Unexpected exception while reading from hcidump", e);
-      }
-      finally {
-        ended = true;
-        longPressHandlerThread.interrupt();
+    }
+
+    void readBtsnoop(ReadableByteChannel channel, boolean paced) throws IOException, InterruptedException {
+      BtsnoopReader reader = new BtsnoopReader(channel, BTSNOOP_BUFFER_SIZE);
+      long startNanos = System.nanoTime();
+      long firstMicros = -1;
+      ByteBuffer packet;
 
-        process.destroy();
+      while((packet = reader.next()) != null) {
+        if(paced) {
+          if(firstMicros == -1) {
+            firstMicros = reader.timestampMicros();
+
+            LOGGER.log(Level.INFO, "Replaying recording from " + Instant.EPOCH.plus(firstMicros - MICROS_FROM_YEAR_0_TO_1970, ChronoUnit.MICROS));
+          }
+
+          long waitNanos = startNanos + (reader.timestampMicros() - firstMicros) * 1000 - System.nanoTime();
+
+          if(waitNanos > 0) {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+          }
+        }
+
+        processKey(packet);
       }
     }
 
+    void end() {
+      ended = true;
+      clearKeyPress();
+    }
+
     void processKey(ByteBuffer payload) {
       byte pdu = payload.get();
 
@@ -141,8 +260,6 @@ public class HciDumpConnector implements Connector {
               if(type == 0x1b) {  // value notification
                 short handle = payload.getShort();
 
-                // TODO add short-pressed
-
                 // filter here TODO make configurable?
                 if(handle == 0x001f || handle == 0x0023) {
                   byte[] data = new byte[dataLength - 3];
@@ -155,17 +272,10 @@ public class HciDumpConnector implements Connector {
                     clearKeyPress();
                   }
                   else {
-                    String state = "pressed";
-                    String keyCode = HexFormat.of().toHexDigits(handle) + ":" + HexFormat.of().formatHex(data);
-
-                    synchronized(this) {
-                      sink.accept(URI.create("hci:%s:%s".formatted(
-                        keyCode,
-                        state
-                      )));
+                    PressedKey key = PressedKey.of(handle, data);
 
-                      triggerRepeatAndLongPressHandler(keyCode);
-                    }
+                    triggerRepeatAndLongPressHandler(key);  // its first deadline is long after the press is sent
+                    send(key, STATE_PRESSED);
                   }
                 }
               }
@@ -185,78 +295,139 @@ public class HciDumpConnector implements Connector {
       return true;
     }
 
-    void triggerRepeatAndLongPressHandler(String keyCode) {
+    void triggerRepeatAndLongPressHandler(PressedKey key) {
       synchronized(this) {
-        this.longPressSent = false;
-        this.lastPressedCode = keyCode;
-        this.nextRepeatNanos = KEY_REPEAT_DELAY_NANOS;
-        this.lastPressTime = System.nanoTime();
+        cancelDeadlines();
+
+        long pressTime = System.nanoTime();
 
-        longPressHandlerThread.interrupt();
+        this.lastPressed = key;
+        this.repeatDeadline = timer.scheduleRepeating(pressTime + KEY_REPEAT_DELAY_NANOS, KEY_REPEAT_INTERVAL_NANOS, () -> sendIfPressed(key, STATE_HELD));
+        this.longPressDeadline = timer.schedule(pressTime + LONG_PRESS_NANOS, () -> sendIfPressed(key, STATE_LONG_PRESSED));
       }
     }
 
     void clearKeyPress() {
+      PressedKey shortPressed;
+
       synchronized(this) {
-        this.longPressSent = false;
-        this.lastPressedCode = null;
-        this.nextRepeatNanos = KEY_REPEAT_DELAY_NANOS;
-        this.lastPressTime = System.nanoTime();
+        shortPressed = cancelDeadlines() && !ended ? lastPressed : null;
+
+        this.lastPressed = null;
       }
-    }
 
-    void handleLongPresses() {
-      while(!ended) {
-        try {
-          Duration sleepDuration = Duration.ofMinutes(1);
+      if(shortPressed != null) {
+        send(shortPressed, STATE_SHORT_PRESSED);
+      }
+    }
 
-          synchronized(this) {
-            if(lastPressedCode != null) {
-              long now = System.nanoTime();
-              long diff = now - lastPressTime;
+    // Returns true if the long press deadline was cancelled before it expired:
+    private boolean cancelDeadlines() {
+      if(repeatDeadline != null) {
+        repeatDeadline.cancel(false);
+      }
 
-              sleepDuration = Duration.ofMillis(10);
+      boolean cancelled = longPressDeadline != null && longPressDeadline.cancel(false);
 
-              if(diff >= nextRepeatNanos) {
-                nextRepeatNanos += KEY_REPEAT_INTERVAL_NANOS;
+      this.repeatDeadline = null;
+      this.longPressDeadline = null;
 
-                sink.accept(URI.create("hci:%s:%s".formatted(
-                  lastPressedCode,
-                  "held"
-                )));
-              }
+      return cancelled;
+    }
 
-              if(diff >= LONG_PRESS_NANOS && !longPressSent) {
-                longPressSent = true;
+    // Deadlines may already be running when cancelled, so check the key is still pressed:
+    private void sendIfPressed(PressedKey key, int state) {
+      synchronized(this) {
+        if(ended || !key.equals(lastPressed)) {
+          return;
+        }
+      }
 
-                sink.accept(URI.create("hci:%s:%s".formatted(
-                  lastPressedCode,
-                  "long-pressed"
-                )));
-              }
-            }
-          }
+      send(key, state);  // outside the lock, so a sink waiting for room holds up neither the timer nor the reader
+    }
 
-          // Sleep outside synchronized block
-          Thread.sleep(sleepDuration);  // just sleep, will be interrupted if a long press may need handling
-        }
-        catch(InterruptedException e) {
-          // fall-through, check ended flag
-        }
+    private void send(PressedKey key, int state) {
+      if(key.code() == NOT_ENCODABLE) {
+        sink.accept(URI.create("hci:%s:%s".formatted(key.text(), STATES.get(state))));
+      }
+      else {
+        sink.acceptKeys(new long[] {key.code() | (long)state << 60}, 1, CODEC);
       }
     }
   }
 
+  private interface Source {
+    void read() throws IOException, InterruptedException;
+  }
+
   @Override
-  public void connect(Consumer<URI> sink, Map<String, Object> parameters) throws ConnectionException {
+  public Connection connect(InputSink sink, Map<String, Object> parameters) throws ConnectionException {
+    EventHandler eventHandler = new EventHandler(sink, KeyTimer.SHARED);
+    String file = (String)parameters.get("file");
+
+    if(file != null) {
+      try {
+        FileChannel channel = FileChannel.open(Path.of(file));
+        Thread thread = new Thread(() -> read(eventHandler, () -> eventHandler.readBtsnoop(channel, true), () -> close(channel)), "hci-replay");
+
+        thread.start();
+
+        return thread::interrupt;  // interrupting closes the channel, or ends the wait between packets
+      }
+      catch(IOException e) {
+        throw new ConnectionException("Unable to open btsnoop recording: " + file, e);
+      }
+    }
+
+    boolean binary = "btsnoop".equals(parameters.get("format"));
+
     try {
-      Process process = new ProcessBuilder("hcidump", "-R").start();
-      EventHandler eventHandler = new EventHandler(sink, process);
+      Process process = binary
+        ? new ProcessBuilder("hcidump", "--btsnoop", "-w", "/dev/stdout").start()
+        : new ProcessBuilder("hcidump", "-R").start();
+
+      Source source = binary
+        ? () -> eventHandler.readBtsnoop(Channels.newChannel(process.getInputStream()), false)
+        : () -> eventHandler.readText(process.getInputStream());
+
+      new Thread(() -> read(eventHandler, source, process::destroy), "hcidump").start();
 
-      eventHandler.start();
+      return process::destroy;  // reader ends on EOF
     }
     catch(IOException e) {
       throw new ConnectionException("IO error starting hcidump", e);
     }
   }
+
+  private static void read(EventHandler eventHandler, Source source, Runnable cleanUp) {
+    try {
+      source.read();
+
+      LOGGER.log(Level.INFO, "EOF encountered");
+    }
+    catch(ClosedByInterruptException | InterruptedException e) {
+      LOGGER.log(Level.INFO, "Stopped reading hci events");
+    }
+    catch(IOException e) {
+      throw new IllegalStateException("Unexpected exception while reading hci events", e);
+    }
+    finally {
+      eventHandler.end();
+      cleanUp.run();
+    }
+  }
+
+  @Override
+  public Optional<InputCodec> codec() {
+    return Optional.of(CODEC);
+  }
+
+  private static void close(FileChannel channel) {
+    try {
+      channel.close();
+    }
+    catch(IOException e) {
+      LOGGER.log(Level.WARNING, "Unable to close btsnoop recording: " + Throwables.formatAsOneLine(e));
+    }
+  }
 }
@@ -12,16 +12,20 @@ import java.lang.foreign.ValueLayout;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.VarHandle;
 import java.net.URI;
-import java.time.Duration;
-import java.util.EnumSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.function.Consumer;
-import java.util.stream.Collectors;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.int4.nexus.core.api.Connection;
 import org.int4.nexus.core.api.ConnectionException;
 import org.int4.nexus.core.api.Connector;
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.util.Metrics;
 
 public class InputDeviceConnector implements Connector {
   private static final Linker LINKER = Linker.nativeLinker();
@@ -30,8 +34,36 @@ public class InputDeviceConnector implements Connector {
 
   private static final int O_RDWR = 0x02;
   private static final int EVIOCGRAB = 0x40044590;
+  private static final int EVIOCREVOKE = 0x40044591;
+  private static final int EAGAIN = 11;
+
+  static final int INPUT_EVENT_SIZE = 24; // Size of struct input_event in bytes (with padding)
+  static final int BATCH_EVENTS = 64; // Events read per call; a frame typically has 2 to 6 events
+
+  private static final short EV_SYN = 0;
+  private static final short EV_KEY = 1;
+  private static final short SYN_REPORT = 0;
+
+  // Keys, from most to least significant bit: 2 bits codec tag (01), 9 bits source (index of the connector id), 5 bits
+  // event type, 16 bits event code and 32 bits event value; for key events the value is the state in the lowest 8 bits
+  // followed by the active modifiers (a bit per Modifier ordinal).
+  private static final long TAG = 1L << 62;
+  private static final int MAX_SOURCES = 1 << 9;
+  private static final int STATE_SHORT_PRESSED = 3;
+  private static final int STATE_LONG_PRESSED = 4;
+  private static final int STATE_UNKNOWN = 5;
+  private static final List<String> STATES = List.of("released", "pressed", "held", "short-pressed", "long-pressed", "unknown");
+  private static final Modifier[] MODIFIERS = Modifier.values();
+  private static final List<String> SOURCES = new ArrayList<>();  // guarded by itself
+  private static final Map<String, List<Integer>> CODES_BY_NAME = new HashMap<>();
+
+  static {
+    for(KeyCode keyCode : KeyCode.values()) {
+      CODES_BY_NAME.computeIfAbsent(keyCode.name().substring(4), k -> new ArrayList<>()).add(keyCode.id());  // KEY_0 and BTN_0 share a name
+    }
+  }
 
-  private static final int INPUT_EVENT_SIZE = 24; // Size of struct input_event in bytes (with padding)
+  static final InputCodec CODEC = new Codec();
 
 //  private static final int EVENT_TIME_SEC_OFFSET = 0; // tv_sec
 //  private static final int EVENT_TIME_MSEC_OFFSET = 8; // tv_usec
@@ -64,7 +96,8 @@ public class InputDeviceConnector implements Connector {
 
   private static final MethodHandle READ = LINKER.downcallHandle(
     LINKER.defaultLookup().find("read").get(),
-    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT),
+    CAPTURE_ERR_NO
   );
 
   private static final MethodHandle READLINK = LINKER.downcallHandle(
@@ -72,6 +105,8 @@ public class InputDeviceConnector implements Connector {
     FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.ADDRESS, ValueLayout.JAVA_INT)
   );
 
+  private InputReactor reactor;
+
   public static int grabDevice(String devicePath) throws ConnectionException {
     try(Arena arena = Arena.ofConfined()) {
       MemorySegment capturedState = arena.allocate(CAPTURED_STATE_LAYOUT);
@@ -128,7 +163,30 @@ public class InputDeviceConnector implements Connector {
     }
   }
 
-  private static void closeDevice(int fd) {
+  private static void releaseDevice(int fd) {
+    try(Arena arena = Arena.ofConfined()) {
+      MemorySegment capturedState = arena.allocate(CAPTURED_STATE_LAYOUT);
+
+      IOCTL.invoke(capturedState, fd, EVIOCGRAB, 0);  // release grab, so device can be grabbed again immediately
+    }
+    catch(Throwable t) {
+      throw new IllegalStateException("Unexpected exception while trying to release file descriptor: " + fd, t);
+    }
+  }
+
+  // Unlike closing, revoking access wakes up a thread blocked reading from the device:
+  private static void revokeDevice(int fd) {
+    try(Arena arena = Arena.ofConfined()) {
+      MemorySegment capturedState = arena.allocate(CAPTURED_STATE_LAYOUT);
+
+      IOCTL.invoke(capturedState, fd, EVIOCREVOKE, 0);
+    }
+    catch(Throwable t) {
+      throw new IllegalStateException("Unexpected exception while trying to revoke file descriptor: " + fd, t);
+    }
+  }
+
+  static void closeDevice(int fd) {
     try {
       CLOSE.invoke(fd);
     }
@@ -137,172 +195,354 @@ public class InputDeviceConnector implements Connector {
     }
   }
 
+  private static int source(String id) {
+    synchronized(SOURCES) {
+      int index = SOURCES.indexOf(id);
+
+      if(index >= 0) {
+        return index;
+      }
+
+      if(SOURCES.size() == MAX_SOURCES) {
+        throw new IllegalStateException("Too many input device ids, maximum is " + MAX_SOURCES + ": " + id);
+      }
+
+      SOURCES.add(id);
+
+      return SOURCES.size() - 1;
+    }
+  }
+
+  private static String sourceId(int source) {
+    synchronized(SOURCES) {
+      return SOURCES.get(source);
+    }
+  }
+
+  private static long key(int source, int type, int code, int value) {
+    return TAG | (long)source << 53 | (long)(type & 0x1f) << 48 | (long)(code & 0xffff) << 32 | value & 0xffffffffL;
+  }
+
+  private static long keyEvent(int source, int code, int state, int modifiers) {
+    return key(source, EV_KEY, code, state | modifiers << 8);
+  }
+
+  private static class Codec implements InputCodec {
+    @Override
+    public String scheme() {
+      return "input-device";
+    }
+
+    // Only keys which decode to exactly the same URI are returned, so inputs match the same mappings as keys or as URIs:
+    @Override
+    public long[] encode(URI input) {
+      if(!input.getScheme().equals(scheme())) {
+        return new long[0];
+      }
+
+      try {
+        String[] parts = input.getSchemeSpecificPart().split(":");
+
+        if(parts.length < 4 || parts.length > 5 || (!parts[1].equals("KEY") && parts.length != 4)) {
+          return new long[0];
+        }
+
+        int source = source(parts[0]);
+
+        if(!parts[1].equals("KEY")) {
+          long key = key(source, Integer.parseInt(parts[1], 16), Integer.parseInt(parts[2], 16), Integer.parseUnsignedInt(parts[3], 16));
+
+          return decode(key).equals(input) ? new long[] {key} : new long[0];
+        }
+
+        int state = STATES.indexOf(parts[3]);
+        int modifiers = parts.length == 5 ? modifiers(parts[4]) : 0;
+
+        List<Integer> codes = CODES_BY_NAME.containsKey(parts[2]) ? CODES_BY_NAME.get(parts[2]) : List.of(Integer.parseInt(parts[2], 16));
+
+        return codes.stream()
+          .mapToLong(code -> keyEvent(source, code, state, modifiers))
+          .filter(key -> state >= 0 && decode(key).equals(input))
+          .toArray();
+      }
+      catch(IllegalArgumentException e) {
+        return new long[0];
+      }
+    }
+
+    private static int modifiers(String text) {
+      int modifiers = 0;
+
+      for(String modifier : text.split("\\+")) {
+        modifiers |= 1 << Modifier.valueOf(modifier.toUpperCase()).ordinal();
+      }
+
+      return modifiers;
+    }
+
+    @Override
+    public URI decode(long key) {
+      String id = sourceId((int)(key >>> 53) & 0x1ff);
+      int type = (int)(key >>> 48) & 0x1f;
+      int code = (int)(key >>> 32) & 0xffff;
+      int value = (int)key;
+
+      if(type != EV_KEY) {
+        return URI.create("input-device:%s:%04x:%04x:%08x".formatted(id, type, code, value));
+      }
+
+      KeyCode keyCode = KeyCode.fromId(code);
+      StringBuilder modifiers = new StringBuilder();
+
+      for(Modifier modifier : MODIFIERS) {
+        if((value >>> 8 & 1 << modifier.ordinal()) != 0) {
+          modifiers.append(modifiers.isEmpty() ? ":" : "+").append(modifier.name().toLowerCase());
+        }
+      }
+
+      return URI.create("input-device:%s:KEY:%s:%s%s".formatted(
+        id,
+        keyCode == null ? "%04x".formatted(code) : keyCode.name().substring(4),
+        STATES.get(Math.min(value & 0xff, STATE_UNKNOWN)),
+        modifiers
+      ));
+    }
+  }
+
   static class EventHandler {
-    private final Thread longPressHandlerThread = new Thread(this::handleLongPresses);
     private final Thread eventHandlerThread = new Thread(this::readEvents);
-    private final Set<Modifier> activeModifiers = EnumSet.noneOf(Modifier.class);  // enum set because it traverses in natural order
+    private final long[] frame = new long[BATCH_EVENTS * 2];  // a key event can add two keys
     private final int fd;
-    private final Consumer<URI> sink;
-    private final String id;
+    private final InputSink sink;
+    private final int source;
+    private final LongAdder reads;
+    private final LongAdder events;
+    private final MemorySegment capturedState = Arena.ofAuto().allocate(CAPTURED_STATE_LAYOUT);
 
     private volatile boolean ended;
+    private boolean closed;  // guarded by this
 
     private long lastPressTime;
     private int lastPressedCode;
-    private boolean longPressSent;
+    private ScheduledFuture<?> longPressDeadline;  // guarded by this
+    private int pendingBytes;  // bytes of an incomplete event at the start of the buffer
+    private int frameSize;
+    private int activeModifiers;  // a bit per Modifier ordinal
 
-    EventHandler(int fd, Consumer<URI> sink, String id, String threadName) {
+    EventHandler(int fd, InputSink sink, String id, String threadName) {
       this.fd = fd;
       this.sink = sink;
-      this.id = id;
+      this.source = source(id);
+      this.reads = Metrics.counter("input-device." + id + ".reads");
+      this.events = Metrics.counter("input-device." + id + ".events");
 
-      longPressHandlerThread.setName(threadName);
       eventHandlerThread.setName(threadName);
     }
 
+    int fd() {
+      return fd;
+    }
+
     void start() {
-      longPressHandlerThread.start();
       eventHandlerThread.start();
     }
 
-    void handleLongPresses() {
-      while(!ended) {
-        try {
-          Duration sleepDuration = Duration.ofMinutes(1);
-
-          synchronized(this) {
-            long now = System.nanoTime();
-            long diff = now - lastPressTime;
-
-            if(diff < LONG_PRESS_NANOS) {
-              sleepDuration = Duration.ofNanos(LONG_PRESS_NANOS - diff);
-            }
-            else if(diff >= LONG_PRESS_NANOS && lastPressedCode != 0 && !longPressSent) {
-              longPressSent = true;
-
-              KeyCode keyCode = KeyCode.fromId(lastPressedCode);
-              String modifiers = "";
-
-              if(!activeModifiers.isEmpty()) {
-                modifiers = ":" + activeModifiers.stream().map(Object::toString).map(String::toLowerCase).collect(Collectors.joining("+"));
-              }
-
-              sink.accept(URI.create("input-device:%s:KEY:%s:%s%s".formatted(
-                id,
-                keyCode == null ? "%04x".formatted(lastPressedCode) : keyCode.name().substring(4),
-                "long-pressed",
-                modifiers
-              )));
-            }
-          }
-
-          // Sleep outside synchronized block
-          Thread.sleep(sleepDuration);  // just sleep, will be interrupted if a long press may need handling
+    // The event thread may be blocked in read, so only it closes the file descriptor, as its number could be reused once
+    // closed. Releasing the grab lets the device be grabbed again right away; revoking access makes the read return:
+    void close() {
+      synchronized(this) {
+        if(!closed) {
+          releaseDevice(fd);
+          revokeDevice(fd);
         }
-        catch(InterruptedException e) {
-          // fall-through, check ended flag
+      }
+
+      end();
+    }
+
+    // Stops delivering events, without touching the file descriptor:
+    void end() {
+      ended = true;
+      cancelLongPress();
+    }
+
+    // The press time identifies the press, in case the key was released and pressed again while the deadline ran:
+    private void sendLongPress(long pressTime) {
+      long key;
+
+      synchronized(this) {
+        if(ended || lastPressedCode == 0 || lastPressTime != pressTime) {
+          return;
         }
+
+        longPressDeadline = null;
+        key = keyEvent(source, lastPressedCode, STATE_LONG_PRESSED, activeModifiers);
       }
+
+      sink.acceptKeys(new long[] {key}, 1, CODEC);
     }
 
-    void readEvents() {
+    private synchronized void cancelLongPress() {
+      if(longPressDeadline != null) {
+        longPressDeadline.cancel(false);
+        longPressDeadline = null;
+      }
+    }
 
+    void readEvents() {
       try(Arena arena = Arena.ofConfined()) {
-        MemorySegment eventSegment = arena.allocate(INPUT_EVENT_SIZE);
+        MemorySegment buffer = arena.allocate(BATCH_EVENTS * INPUT_EVENT_SIZE);
 
-        for(;;) {
-          int bytesRead = (int)READ.invoke(fd, eventSegment, INPUT_EVENT_SIZE);
+        while(readBatch(buffer) >= 0) {
+          // continue reading
+        }
 
-          if(bytesRead < 0) {
-            LOGGER.log(Level.INFO, "EOF encountered on handle " + fd);
-            break;
-          }
-          else if(bytesRead == 0) {
-            continue;
-          }
+        LOGGER.log(Level.INFO, "EOF encountered on handle " + fd);
+      }
+      catch(Throwable t) {
+        throw new IllegalStateException("Unexpected exception while reading from handle: " + fd, t);
+      }
+      finally {
+        end();
+
+        synchronized(this) {
+          closeDevice(fd);
+          closed = true;
+        }
+      }
+    }
+
+    int readBatch(MemorySegment buffer) throws Throwable {
+      MemorySegment target = pendingBytes == 0 ? buffer : buffer.asSlice(pendingBytes);
+      int bytesRead = (int)READ.invoke(capturedState, fd, target, (int)target.byteSize());
+
+      if(bytesRead < 0 && (int)ERR_NO_HANDLE.get(capturedState, 0L) == EAGAIN) {
+        return 0;  // non-blocking handle without data
+      }
+
+      if(bytesRead < 0 || ended) {
+        return -1;
+      }
+
+      if(bytesRead == 0) {
+        return 0;  // devices never return this, only a closed pipe does
+      }
+
+      int bytes = pendingBytes + bytesRead;
+      int end = bytes - bytes % INPUT_EVENT_SIZE;
+
+      for(int offset = 0; offset < end; offset += INPUT_EVENT_SIZE) {
+        processEvent(
+          buffer.get(ValueLayout.JAVA_SHORT, offset + EVENT_TYPE_OFFSET),
+          buffer.get(ValueLayout.JAVA_SHORT, offset + EVENT_CODE_OFFSET),
+          buffer.get(ValueLayout.JAVA_INT, offset + EVENT_VALUE_OFFSET)
+        );
+      }
+
+      pendingBytes = bytes - end;
+
+      if(pendingBytes > 0) {
+        MemorySegment.copy(buffer, end, buffer, 0, pendingBytes);  // only for pipes, devices only return whole events
+      }
 
-          short type = eventSegment.get(ValueLayout.JAVA_SHORT, EVENT_TYPE_OFFSET);
-          short code = eventSegment.get(ValueLayout.JAVA_SHORT, EVENT_CODE_OFFSET);
-          int value = eventSegment.get(ValueLayout.JAVA_INT, EVENT_VALUE_OFFSET);
-
-          if(type == 1) {
-            String state = switch(value) {
-              case 0 -> "released";
-              case 1 -> "pressed";
-              case 2 -> "held";
-              default -> "unknown";
-            };
-
-            String modifiers = "";
-            KeyCode keyCode = KeyCode.fromId(code);
-
-            if(keyCode != null && keyCode.modifier() != null) {
-              if(value == 1) {
-                activeModifiers.add(keyCode.modifier());
-              }
-              else if(value == 0) {
-                activeModifiers.remove(keyCode.modifier());
-              }
-            }
-
-            if(!activeModifiers.isEmpty()) {
-              modifiers = ":" + activeModifiers.stream().map(Object::toString).map(String::toLowerCase).collect(Collectors.joining("+"));
-            }
-
-            if(value == 0 && System.nanoTime() - lastPressTime < LONG_PRESS_NANOS) {
-              sink.accept(URI.create("input-device:%s:KEY:%s:%s%s".formatted(
-                id,
-                keyCode == null ? "%04x".formatted(code) : keyCode.name().substring(4),
-                "short-pressed",
-                modifiers
-              )));
-            }
-
-            synchronized(this) {
-              sink.accept(URI.create("input-device:%s:KEY:%s:%s%s".formatted(
-                id,
-                keyCode == null ? "%04x".formatted(code) : keyCode.name().substring(4),
-                state,
-                modifiers
-              )));
-
-              if(value == 1) {
-                lastPressedCode = code;
-                lastPressTime = System.nanoTime();
-                longPressSent = false;
-
-                longPressHandlerThread.interrupt();  // interrupt to trigger long press timer
-              }
-              else if(value == 0) {
-                lastPressedCode = 0;
-              }
-            }
+      reads.increment();
+      events.add(end / INPUT_EVENT_SIZE);
+
+      return end / INPUT_EVENT_SIZE;
+    }
+
+    void processEvent(short type, short code, int value) {
+      if(type == EV_SYN) {  // sync events don't have identifying information, but end a frame
+        if(code == SYN_REPORT && frameSize > 0) {
+          sink.acceptKeys(frame, frameSize, CODEC);
+          frameSize = 0;
+        }
+
+        return;
+      }
+
+      if(frameSize > frame.length - 2) {  // unusually large frame, deliver what was collected so far
+        sink.acceptKeys(frame, frameSize, CODEC);
+        frameSize = 0;
+      }
+
+      if(type != EV_KEY) {
+        frame[frameSize++] = key(source, type, code, value);
+
+        return;
+      }
+
+      KeyCode keyCode = KeyCode.fromId(code & 0xffff);
+
+      synchronized(this) {  // modifiers are also read when sending long presses
+        if(keyCode != null && keyCode.modifier() != null) {
+          if(value == 1) {
+            activeModifiers |= 1 << keyCode.modifier().ordinal();
           }
-          else if(type != 0) { // 0 are typically sync events, they don't have identifying information
-            sink.accept(URI.create("input-device:%s:%04x:%04x:%08x".formatted(id, type, code, value)));
+          else if(value == 0) {
+            activeModifiers &= ~(1 << keyCode.modifier().ordinal());
           }
         }
       }
-      catch(Throwable t) {
-        throw new IllegalStateException("Unexpected exception while reading events from handle: " + fd, t);
+
+      if(value == 0 && System.nanoTime() - lastPressTime < LONG_PRESS_NANOS) {
+        frame[frameSize++] = keyEvent(source, code, STATE_SHORT_PRESSED, activeModifiers);
       }
-      finally {
-        ended = true;
-        longPressHandlerThread.interrupt();
 
-        closeDevice(fd);
+      frame[frameSize++] = keyEvent(source, code, value >= 0 && value <= 2 ? value : STATE_UNKNOWN, activeModifiers);
+
+      if(value == 1) {
+        long pressTime = System.nanoTime();
+
+        synchronized(this) {
+          cancelLongPress();
+
+          lastPressedCode = code & 0xffff;
+          lastPressTime = pressTime;
+          longPressDeadline = KeyTimer.SHARED.schedule(pressTime + LONG_PRESS_NANOS, () -> sendLongPress(pressTime));
+        }
+      }
+      else if(value == 0) {
+        synchronized(this) {
+          cancelLongPress();
+
+          lastPressedCode = 0;
+        }
       }
     }
   }
 
   @Override
-  public void connect(Consumer<URI> sink, Map<String, Object> parameters) throws ConnectionException {
+  public Connection connect(InputSink sink, Map<String, Object> parameters) throws ConnectionException {
     String id = (String)parameters.get("id");
     String devicePath = (String)parameters.get("device");
     String threadName = readLink(devicePath).orElse(devicePath);
     int fd = grabDevice(devicePath);
     EventHandler handler = new EventHandler(fd, sink, id, threadName);
 
+    if("reactor".equals(parameters.get("mode"))) {
+      InputReactor reactor = getReactor();
+
+      reactor.register(handler);
+
+      return () -> reactor.unregister(handler);
+    }
+
     handler.start();
+
+    return handler::close;
+  }
+
+  private synchronized InputReactor getReactor() {
+    if(reactor == null) {
+      reactor = new InputReactor();
+    }
+
+    return reactor;
+  }
+
+  @Override
+  public Optional<InputCodec> codec() {
+    return Optional.of(CODEC);
   }
 }
@@ -0,0 +1,264 @@
+package org.int4.nexus.core.connector;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemoryLayout.PathElement;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.VarHandle;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.int4.nexus.core.util.Metrics;
+import org.int4.nexus.core.util.Throwables;
+
+class InputReactor {
+  private static final Logger LOGGER = System.getLogger(InputReactor.class.getName());
+  private static final Linker LINKER = Linker.nativeLinker();
+
+  // struct epoll_event is packed on x86-64 only:
+  private static final boolean PACKED = Set.of("amd64", "x86_64").contains(System.getProperty("os.arch"));
+  private static final long EPOLL_EVENT_SIZE = PACKED ? 12 : 16;
+  private static final long EPOLL_EVENT_DATA_OFFSET = PACKED ? 4 : 8;
+  private static final int MAX_EVENTS = 16;
+
+  private static final int EPOLLIN = 0x001;
+  private static final int EPOLLHUP = 0x010;
+  private static final int EPOLL_CTL_ADD = 1;
+  private static final int EPOLL_CTL_DEL = 2;
+  private static final int EPOLL_CLOEXEC = 0x80000;
+  private static final int EFD_CLOEXEC = 0x80000;
+  private static final int EFD_NONBLOCK = 0x800;
+  private static final int F_GETFL = 3;
+  private static final int F_SETFL = 4;
+  private static final int O_NONBLOCK = 0x800;
+  private static final int EINTR = 4;
+
+  private static final Linker.Option CAPTURE_ERR_NO = Linker.Option.captureCallState("errno");
+  private static final StructLayout CAPTURED_STATE_LAYOUT = Linker.Option.captureStateLayout();
+  private static final VarHandle ERR_NO_HANDLE = CAPTURED_STATE_LAYOUT.varHandle(PathElement.groupElement("errno"));
+
+  private static final MethodHandle EPOLL_CREATE1 = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("epoll_create1").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT)
+  );
+
+  private static final MethodHandle EPOLL_CTL = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("epoll_ctl").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+  );
+
+  private static final MethodHandle EPOLL_WAIT = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("epoll_wait").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT),
+    CAPTURE_ERR_NO
+  );
+
+  private static final MethodHandle EVENTFD = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("eventfd").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT)
+  );
+
+  private static final MethodHandle FCNTL = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("fcntl").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_INT),
+    Linker.Option.firstVariadicArg(2)
+  );
+
+  private static final MethodHandle READ = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("read").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG)
+  );
+
+  private static final MethodHandle WRITE = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("write").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG)
+  );
+
+  private final Queue<Command> commands = new ConcurrentLinkedQueue<>();
+  private final Map<Integer, Device> devices = new HashMap<>();  // only accessed by reactor thread
+  private final MemorySegment wakeUpValue = Arena.global().allocate(ValueLayout.JAVA_LONG);
+  private final int epollFd;
+  private final int wakeUpFd;
+
+  private volatile int deviceCount;
+
+  private record Device(InputDeviceConnector.EventHandler handler, MemorySegment buffer) {}
+
+  private interface Command {
+    void run() throws Throwable;
+  }
+
+  InputReactor() {
+    try {
+      this.epollFd = (int)EPOLL_CREATE1.invoke(EPOLL_CLOEXEC);
+      this.wakeUpFd = (int)EVENTFD.invoke(0, EFD_CLOEXEC | EFD_NONBLOCK);
+
+      if(epollFd < 0 || wakeUpFd < 0) {
+        throw new IllegalStateException("Unable to create epoll or event file descriptor");
+      }
+
+      control(EPOLL_CTL_ADD, wakeUpFd);
+    }
+    catch(Throwable t) {
+      throw new IllegalStateException("Unexpected exception while creating input reactor", t);
+    }
+
+    wakeUpValue.set(ValueLayout.JAVA_LONG, 0, 1);
+
+    Metrics.gauge("input-reactor.devices", () -> deviceCount);
+
+    Thread.ofPlatform().name("input-reactor").start(this::run);
+  }
+
+  void register(InputDeviceConnector.EventHandler handler) {
+    submit(() -> add(handler));
+  }
+
+  void unregister(InputDeviceConnector.EventHandler handler) {
+    submit(() -> {
+      Device device = devices.get(handler.fd());
+
+      // Skipped when the reactor already removed it, as its number may be in use by another device since:
+      if(device != null && device.handler() == handler) {
+        remove(handler.fd());
+      }
+    });
+  }
+
+  int deviceCount() {
+    return deviceCount;
+  }
+
+  private void submit(Command command) {
+    commands.add(command);
+
+    try {
+      WRITE.invoke(wakeUpFd, wakeUpValue, 8L);
+    }
+    catch(Throwable t) {
+      throw new IllegalStateException("Unexpected exception while waking up input reactor", t);
+    }
+  }
+
+  private void add(InputDeviceConnector.EventHandler handler) throws Throwable {
+    int fd = handler.fd();
+    int flags = (int)FCNTL.invoke(fd, F_GETFL, 0);
+
+    if(flags < 0 || (int)FCNTL.invoke(fd, F_SETFL, flags | O_NONBLOCK) < 0 || control(EPOLL_CTL_ADD, fd) < 0) {
+      LOGGER.log(Level.WARNING, "Unable to register handle " + fd + " with input reactor");
+      InputDeviceConnector.closeDevice(fd);
+
+      return;
+    }
+
+    devices.put(fd, new Device(handler, Arena.ofAuto().allocate(InputDeviceConnector.BATCH_EVENTS * InputDeviceConnector.INPUT_EVENT_SIZE)));
+    deviceCount = devices.size();
+  }
+
+  private void remove(int fd) throws Throwable {
+    Device device = devices.remove(fd);
+
+    if(device != null) {
+      device.handler().end();
+      control(EPOLL_CTL_DEL, fd);
+      InputDeviceConnector.closeDevice(fd);
+
+      deviceCount = devices.size();
+    }
+  }
+
+  private int control(int operation, int fd) throws Throwable {
+    try(Arena arena = Arena.ofConfined()) {
+      MemorySegment event = arena.allocate(EPOLL_EVENT_SIZE);
+
+      event.set(ValueLayout.JAVA_INT_UNALIGNED, 0, EPOLLIN);
+      event.set(ValueLayout.JAVA_INT_UNALIGNED, EPOLL_EVENT_DATA_OFFSET, fd);
+
+      return (int)EPOLL_CTL.invoke(epollFd, operation, fd, event);
+    }
+  }
+
+  private void run() {
+    try(Arena arena = Arena.ofConfined()) {
+      MemorySegment capturedState = arena.allocate(CAPTURED_STATE_LAYOUT);
+      MemorySegment events = arena.allocate(EPOLL_EVENT_SIZE * MAX_EVENTS);
+      MemorySegment wakeUpBuffer = arena.allocate(ValueLayout.JAVA_LONG);
+
+      for(;;) {
+        int count = (int)EPOLL_WAIT.invoke(capturedState, epollFd, events, MAX_EVENTS, -1);
+
+        if(count < 0) {
+          int errno = (int)ERR_NO_HANDLE.get(capturedState, 0L);
+
+          if(errno == EINTR) {
+            continue;
+          }
+
+          throw new IllegalStateException("epoll_wait failed; errno: " + errno);
+        }
+
+        for(int i = 0; i < count; i++) {
+          int flags = events.get(ValueLayout.JAVA_INT_UNALIGNED, i * EPOLL_EVENT_SIZE);
+          int fd = events.get(ValueLayout.JAVA_INT_UNALIGNED, i * EPOLL_EVENT_SIZE + EPOLL_EVENT_DATA_OFFSET);
+
+          if(fd == wakeUpFd) {
+            READ.invoke(wakeUpFd, wakeUpBuffer, 8L);  // resets the counter
+
+            Command command;
+
+            while((command = commands.poll()) != null) {
+              execute(command);
+            }
+          }
+          else {
+            Device device = devices.get(fd);
+
+            // Device can be missing if it was removed by a command earlier in this batch:
+            if(device != null) {
+              read(fd, device, (flags & EPOLLHUP) != 0);
+            }
+          }
+        }
+      }
+    }
+    catch(Throwable t) {
+      LOGGER.log(Level.ERROR, "Input reactor stopped unexpectedly", t);
+    }
+  }
+
+  private static void execute(Command command) {
+    try {
+      command.run();
+    }
+    catch(Throwable t) {
+      LOGGER.log(Level.WARNING, "Exception while running input reactor command: " + Throwables.formatAsOneLine(t));
+    }
+  }
+
+  // A handle which hung up, like a pipe of which the writer closed, reads nothing once it is empty:
+  private void read(int fd, Device device, boolean hungUp) {
+    try {
+      int count = device.handler.readBatch(device.buffer);
+
+      if(count < 0 || (count == 0 && hungUp)) {
+        LOGGER.log(Level.INFO, "Device removed or closed on handle " + fd);
+
+        remove(fd);
+      }
+    }
+    catch(Throwable t) {
+      LOGGER.log(Level.WARNING, "Exception while reading device on handle " + fd + ", removing it: " + Throwables.formatAsOneLine(t));
+
+      execute(() -> remove(fd));
+    }
+  }
+}
@@ -0,0 +1,91 @@
+package org.int4.nexus.core.connector;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.int4.nexus.core.api.Connection;
+import org.int4.nexus.core.api.ConnectionException;
+import org.int4.nexus.core.api.Connector;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.journal.JournalReader;
+import org.int4.nexus.core.util.Throwables;
+
+public class JournalReplayConnector implements Connector {
+  private static final Logger LOGGER = System.getLogger(JournalReplayConnector.class.getName());
+
+  @Override
+  public Connection connect(InputSink sink, Map<String, Object> parameters) throws ConnectionException {
+    String file = (String)parameters.get("file");
+    String connectorId = (String)parameters.get("connector");
+    boolean fast = "fast".equals(parameters.get("speed"));
+
+    if(file == null) {
+      throw new ConnectionException("Parameter 'file' is required");
+    }
+
+    if(connectorId == null) {
+      throw new ConnectionException("Parameter 'connector' is required");
+    }
+
+    try {
+      JournalReader reader = JournalReader.open(Path.of(file));
+      Thread thread = Thread.ofPlatform().name("journal-replay:" + file + ":" + connectorId).start(() -> replay(reader, connectorId, sink, fast, file));
+
+      return thread::interrupt;
+    }
+    catch(IOException e) {
+      throw new ConnectionException("Unable to open journal: " + file, e);
+    }
+  }
+
+  private static void replay(JournalReader reader, String connectorId, InputSink sink, boolean fast, String file) {
+    LOGGER.log(Level.INFO, "Replaying inputs of " + connectorId + " from journal " + file + " created at " + reader.created() + (fast ? " as fast as possible" : ""));
+
+    try(reader) {
+      long startNanos = System.nanoTime();
+      long firstNanos = -1;
+      long maxLagNanos = 0;
+      int entries = 0;
+      int inputs = 0;
+      JournalReader.Entry entry;
+
+      while((entry = reader.next()) != null) {
+        if(firstNanos == -1) {
+          firstNanos = entry.nanos();  // of any connector, so replays of several connectors keep their interleaving
+        }
+
+        if(!entry.connectorId().equals(connectorId)) {
+          continue;
+        }
+
+        if(!fast) {
+          long waitNanos = startNanos + entry.nanos() - firstNanos - System.nanoTime();
+
+          if(waitNanos > 0) {
+            Thread.sleep(Duration.ofNanos(waitNanos));
+          }
+          else {
+            maxLagNanos = Math.max(maxLagNanos, -waitNanos);
+          }
+        }
+
+        sink.acceptAll(entry.inputs());
+
+        entries++;
+        inputs += entry.inputs().size();
+      }
+
+      LOGGER.log(Level.INFO, "Replayed " + entries + " entries with " + inputs + " inputs of " + connectorId + " from " + file + " in " + Duration.ofNanos(System.nanoTime() - startNanos).toMillis() + " ms" + (fast ? "" : ", lagging at most " + Duration.ofNanos(maxLagNanos).toMillis() + " ms"));
+    }
+    catch(InterruptedException e) {
+      LOGGER.log(Level.INFO, "Stopped replaying journal " + file);
+    }
+    catch(IOException e) {
+      LOGGER.log(Level.WARNING, "Stopped replaying journal " + file + " because: " + Throwables.formatAsOneLine(e));
+    }
+  }
+}
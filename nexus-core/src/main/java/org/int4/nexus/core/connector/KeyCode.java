@@ -1,9 +1,6 @@
 package org.int4.nexus.core.connector;
 
 import java.util.Arrays;
-import java.util.Map;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 enum KeyCode {
   KEY_ESC(1),
@@ -472,11 +469,16 @@ enum KeyCode {
   KEY_NUMERIC_STAR(0x20a),
   KEY_NUMERIC_POUND(0x20b);
 
-  private static final Map<Integer, KeyCode> codes = Arrays.stream(KeyCode.values())
-    .collect(Collectors.toMap(kc -> kc.id, Function.identity()));
+  private static final KeyCode[] CODES = new KeyCode[Arrays.stream(KeyCode.values()).mapToInt(kc -> kc.id).max().orElseThrow() + 1];
+
+  static {
+    for(KeyCode keyCode : values()) {
+      CODES[keyCode.id] = keyCode;
+    }
+  }
 
   public static KeyCode fromId(int id) {
-    return codes.get(id);
+    return id >= 0 && id < CODES.length ? CODES[id] : null;  // array instead of map avoids boxing the id
   }
 
   private final int id;
@@ -491,6 +493,10 @@ enum KeyCode {
     this(id, null);
   }
 
+  public int id() {
+    return id;
+  }
+
   public Modifier modifier() {
     return modifier;
   }
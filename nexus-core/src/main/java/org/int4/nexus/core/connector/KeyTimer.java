@@ -0,0 +1,56 @@
+package org.int4.nexus.core.connector;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.int4.nexus.core.util.Metrics;
+import org.int4.nexus.core.util.Throwables;
+
+class KeyTimer {
+  private static final Logger LOGGER = System.getLogger(KeyTimer.class.getName());
+  static final KeyTimer SHARED = new KeyTimer("key-timer");
+
+  private final ScheduledThreadPoolExecutor executor;
+  private final LongAdder fired;
+  private final LongAdder latenessNanos;
+
+  KeyTimer(String name) {
+    this.executor = new ScheduledThreadPoolExecutor(1, r -> Thread.ofPlatform().name(name).daemon().unstarted(r));
+    this.fired = Metrics.counter(name + ".fired");
+    this.latenessNanos = Metrics.counter(name + ".lateness-nanos");
+
+    executor.setRemoveOnCancelPolicy(true);  // a cancelled deadline must not wake up the thread
+
+    Metrics.gauge(name + ".pending", () -> executor.getQueue().size());
+  }
+
+  ScheduledFuture<?> schedule(long deadlineNanos, Runnable task) {
+    return executor.schedule(() -> run(deadlineNanos, task), deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  ScheduledFuture<?> scheduleRepeating(long deadlineNanos, long intervalNanos, Runnable task) {
+    long[] nextNanos = {deadlineNanos};  // only accessed by the timer thread
+
+    return executor.scheduleAtFixedRate(() -> {  // fixed rate, so a late repeat does not delay the next
+      run(nextNanos[0], task);
+
+      nextNanos[0] += intervalNanos;
+    }, deadlineNanos - System.nanoTime(), intervalNanos, TimeUnit.NANOSECONDS);
+  }
+
+  private void run(long deadlineNanos, Runnable task) {
+    latenessNanos.add(Math.max(0, System.nanoTime() - deadlineNanos));
+    fired.increment();
+
+    try {
+      task.run();
+    }
+    catch(Exception e) {
+      LOGGER.log(Level.WARNING, "Exception while handling key deadline: " + Throwables.formatAsOneLine(e));  // keeps repeats going
+    }
+  }
+}
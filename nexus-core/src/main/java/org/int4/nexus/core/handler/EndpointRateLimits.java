@@ -0,0 +1,37 @@
+package org.int4.nexus.core.handler;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.util.RateLimiter;
+
+class EndpointRateLimits {
+  private final Map<String, RateLimiter> limiters = new ConcurrentHashMap<>();
+  private final String handlerId;
+  private final double rate;
+  private final int burst;
+  private final long maxWaitNanos;
+
+  EndpointRateLimits(String handlerId, double rate, int burst, int maxWait, ShedPolicy shedPolicy) {
+    this.handlerId = handlerId;
+    this.rate = rate;
+    this.burst = burst == 0 ? 1 : burst;
+    this.maxWaitNanos = shedPolicy == ShedPolicy.WAIT ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(maxWait == 0 ? 1000 : maxWait);
+  }
+
+  long reserve(String endpoint) {
+    if(rate == 0) {
+      return 0;
+    }
+
+    long nanos = limiters.computeIfAbsent(endpoint, k -> new RateLimiter(handlerId + "." + k, rate, burst)).reserve(maxWaitNanos);
+
+    if(nanos < 0) {
+      throw new RejectedExecutionException("rate limit of " + endpoint + " exceeded by more than " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+    }
+
+    return nanos;
+  }
+}
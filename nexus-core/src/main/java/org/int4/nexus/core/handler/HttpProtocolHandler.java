@@ -1,5 +1,7 @@
 package org.int4.nexus.core.handler;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import java.io.IOException;
 import java.lang.System.Logger;
 import java.lang.System.Logger.Level;
@@ -8,54 +10,160 @@ import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
 
 import org.int4.nexus.core.api.Action;
 import org.int4.nexus.core.api.TerminalActionHandler;
 
 public class HttpProtocolHandler implements TerminalActionHandler {
+  public enum Mode {
+
+    @JsonProperty("blocking") BLOCKING,
+
+    @JsonProperty("async") ASYNC,
+
+    @JsonProperty("fire-and-forget") FIRE_AND_FORGET
+  }
+
+  public record Parameters(
+    String id,
+    Mode mode,
+    @JsonProperty("connect-timeout") int connectTimeout,
+    @JsonProperty("request-timeout") int requestTimeout,
+    @JsonProperty("max-in-flight") int maxInFlight,
+    @JsonProperty("rate-limit") double rateLimit,
+    int burst,
+    @JsonProperty("max-wait") int maxWait,
+    ShedPolicy shed
+  ) {}
+
   private static final Logger LOGGER = System.getLogger(HttpProtocolHandler.class.getName());
-  private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+  private final Map<String, Semaphore> inFlightPermits = new ConcurrentHashMap<>();
+  private final EndpointRateLimits rateLimits;
+  private final HttpClient client;
+  private final Mode mode;
+  private final Duration requestTimeout;
+  private final int maxInFlight;
+
+  public HttpProtocolHandler(Parameters parameters) {
+    this.mode = parameters.mode == null ? Mode.BLOCKING : parameters.mode;
+    this.requestTimeout = Duration.ofMillis(parameters.requestTimeout == 0 ? 5000 : parameters.requestTimeout);
+    this.maxInFlight = parameters.maxInFlight == 0 ? 4 : parameters.maxInFlight;
+    this.rateLimits = new EndpointRateLimits(parameters.id, parameters.rateLimit, parameters.burst, parameters.maxWait, parameters.shed);
+    this.client = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)  // devices rarely support HTTP/2, avoids upgrade attempts; connections are kept alive and reused
+      .connectTimeout(Duration.ofMillis(parameters.connectTimeout == 0 ? 2000 : parameters.connectTimeout))
+      .build();
+  }
 
   @Override
   public void accept(Action action) {
     URI uri = action.uri();
+    HttpRequest request = createRequest(action);
 
-    // TODO scheme is irrelevant, should be replaced?
-    if(!uri.getScheme().equals("http")) {
-      throw new IllegalArgumentException("only http scheme is supported: " + uri);
+    try {
+      HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+
+      report(uri, response, null);
+    }
+    catch(IOException e) {
+      report(uri, null, e);
     }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 
-    String command = action.payload();
-    String method = action.method();
+  @Override
+  public CompletableFuture<Void> submit(Action action) {
+    if(mode == Mode.BLOCKING) {
+      return TerminalActionHandler.super.submit(action);
+    }
 
-    HttpRequest request = createRequest(uri, method, command);
+    URI uri = action.uri();
+    HttpRequest request = createRequest(action);
+    Semaphore permits = inFlightPermits.computeIfAbsent(uri.getAuthority(), k -> new Semaphore(maxInFlight));
 
     try {
-      HttpResponse<String> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+      permits.acquire();  // blocks the lane of this host until a request completes
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
 
-      if(response.statusCode() < 200 || response.statusCode() >= 300) {
-        LOGGER.log(Level.WARNING, "HTTP action " + uri + " was unsuccesful, status code: " + response.statusCode());
-      }
+      return CompletableFuture.failedFuture(e);
     }
-    catch(IOException e) {
+
+    CompletableFuture<Void> completion;
+
+    try {
+      completion = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+        .handle((response, t) -> {
+          permits.release();
+          report(uri, response, t);
+
+          return null;
+        });
+    }
+    catch(RuntimeException e) {  // such as when the client was shut down
+      permits.release();
+      report(uri, null, e);
+
+      completion = CompletableFuture.failedFuture(e);
+    }
+
+    return mode == Mode.FIRE_AND_FORGET ? CompletableFuture.completedFuture(null) : completion;
+  }
+
+  @Override
+  public long admit(Action action) {
+    return rateLimits.reserve(endpoint(action.uri()));
+  }
+
+  @Override
+  public void close() {
+    client.close();
+  }
+
+  private static String endpoint(URI uri) {
+    return uri.getHost() + ":" + (uri.getPort() == -1 ? 80 : uri.getPort());
+  }
+
+  private static void report(URI uri, HttpResponse<?> response, Throwable t) {
+    if(t != null) {
+      Throwable e = t.getCause() instanceof IOException ? t.getCause() : t;
+
       LOGGER.log(Level.ERROR, "HTTP action " + uri + " was unsuccesful: " + e + (e.getMessage() == null ? "" : " (" + e.getMessage() + ")"));
     }
-    catch(InterruptedException e) {
-      Thread.currentThread().interrupt();
+    else if(response.statusCode() < 200 || response.statusCode() >= 300) {
+      LOGGER.log(Level.WARNING, "HTTP action " + uri + " was unsuccesful, status code: " + response.statusCode());
     }
   }
 
-  private static HttpRequest createRequest(URI uri, String method, String payload) {
-    if(method.equals("GET")) {
+  private HttpRequest createRequest(Action action) {
+    URI uri = action.uri();
+
+    // TODO scheme is irrelevant, should be replaced?
+    if(!uri.getScheme().equals("http")) {
+      throw new IllegalArgumentException("only http scheme is supported: " + uri);
+    }
+
+    if(action.method().equals("GET")) {
       return HttpRequest.newBuilder()
         .uri(uri)
+        .timeout(requestTimeout)
         .GET()
         .build();
     }
 
     return HttpRequest.newBuilder()
       .uri(uri)
-      .POST(HttpRequest.BodyPublishers.ofString(payload, StandardCharsets.UTF_8))
+      .timeout(requestTimeout)
+      .POST(HttpRequest.BodyPublishers.ofString(action.payload(), StandardCharsets.UTF_8))
       .header("Content-Type", "text/plain")
       .build();
   }
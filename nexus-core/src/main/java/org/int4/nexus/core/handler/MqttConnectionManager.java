@@ -0,0 +1,273 @@
+package org.int4.nexus.core.handler;
+
+import com.hivemq.client.mqtt.MqttGlobalPublishFilter;
+import com.hivemq.client.mqtt.datatypes.MqttTopicFilter;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5AsyncClient;
+import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
+
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import org.int4.nexus.core.util.Metrics;
+import org.int4.nexus.core.util.Throwables;
+
+class MqttConnectionManager {
+  private static final Logger LOGGER = System.getLogger(MqttConnectionManager.class.getName());
+  private static final String CLIENT_IDENTIFIER_PREFIX = "nexus-" + UUID.randomUUID().toString().substring(0, 8) + "-";  // unique, as brokers disconnect a client when another connects with its identifier
+  private static final long INITIAL_RECONNECT_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+  private static final long MAX_RECONNECT_DELAY_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+  private final Map<String, Connection> connections = new HashMap<>();  // guarded by itself
+  private final ClientFactory clientFactory;
+
+  interface Client {
+    CompletableFuture<Void> connect();
+    CompletableFuture<Void> disconnect();
+    CompletableFuture<Mqtt5PublishResult> publish(Mqtt5Publish publish);
+    CompletableFuture<Void> subscribe(String topicFilter);
+    CompletableFuture<Void> unsubscribe(String topicFilter);
+    boolean isConnected();
+  }
+
+  interface Listener {
+
+    void connected();
+
+    long disconnected(Throwable cause);
+
+    void received(Mqtt5Publish publish);
+  }
+
+  interface ClientFactory {
+    Client create(String identifier, String host, int port, Listener listener);
+  }
+
+  MqttConnectionManager() {
+    this(HiveMqClient::new);
+  }
+
+  MqttConnectionManager(ClientFactory clientFactory) {
+    this.clientFactory = clientFactory;
+  }
+
+  Connection acquire(String host, int port) {
+    synchronized(connections) {
+      Connection connection = connections.computeIfAbsent(host + ":" + port, k -> new Connection(host, port));
+
+      connection.references++;
+
+      return connection;
+    }
+  }
+
+  class Connection implements Listener {
+    private final Map<String, Set<Consumer<Mqtt5Publish>>> subscriptions = new ConcurrentHashMap<>();  // modified while holding its lock
+    private final String name;
+    private final String metricsPrefix;
+    private final LongAdder connects;
+    private final LongAdder disconnects;
+    private final Client client;
+    private final CompletableFuture<Void> firstAttempt;
+    private final LongSupplier connectedGauge;
+    private final LongSupplier lastConnectGauge;
+
+    private int references;  // guarded by connections
+    private long reconnectDelayNanos = INITIAL_RECONNECT_DELAY_NANOS;  // guarded by this
+
+    private volatile boolean released;
+    private volatile long attemptNanos = System.nanoTime();
+    private volatile long lastConnectNanos;
+
+    Connection(String host, int port) {
+      this.name = host + ":" + port;
+      this.metricsPrefix = "mqtt." + name + ".";
+      this.connects = Metrics.counter(metricsPrefix + "connects");
+      this.disconnects = Metrics.counter(metricsPrefix + "disconnects");
+      this.client = clientFactory.create(CLIENT_IDENTIFIER_PREFIX + name, host, port, this);
+      this.connectedGauge = () -> client.isConnected() ? 1 : 0;
+      this.lastConnectGauge = () -> lastConnectNanos;
+
+      Metrics.gauge(metricsPrefix + "connected", connectedGauge);
+      Metrics.gauge(metricsPrefix + "last-connect-nanos", lastConnectGauge);
+
+      LOGGER.log(Level.INFO, "Connecting to MQTT broker " + name);
+
+      // Publishing is only possible once connecting started; failures are retried:
+      this.firstAttempt = client.connect().handle((v, t) -> null);
+    }
+
+    CompletableFuture<Mqtt5PublishResult> publish(Mqtt5Publish publish) {
+      return firstAttempt.thenCompose(v -> client.publish(publish));
+    }
+
+    Runnable subscribe(String topicFilter, Consumer<Mqtt5Publish> listener) {
+      synchronized(subscriptions) {
+        Set<Consumer<Mqtt5Publish>> listeners = subscriptions.get(topicFilter);
+
+        if(listeners == null) {
+          listeners = new CopyOnWriteArraySet<>();
+
+          // Registered under the lock held while renewing subscriptions, so a concurrent connect can't miss it:
+          subscriptions.put(topicFilter, listeners);
+
+          if(client.isConnected()) {
+            renew(topicFilter);
+          }
+        }
+
+        listeners.add(listener);
+      }
+
+      return () -> unsubscribe(topicFilter, listener);
+    }
+
+    void release() {
+      synchronized(connections) {
+        if(--references > 0) {
+          return;
+        }
+
+        connections.remove(name);
+      }
+
+      released = true;
+
+      Metrics.unregister(metricsPrefix + "connected", connectedGauge);  // a new connection to the same broker may have registered its own
+      Metrics.unregister(metricsPrefix + "last-connect-nanos", lastConnectGauge);
+
+      LOGGER.log(Level.INFO, "Disconnecting from MQTT broker " + name + " as it is no longer used");
+
+      client.disconnect().whenComplete((v, t) -> {
+        if(t != null) {
+          LOGGER.log(Level.DEBUG, "Disconnecting from MQTT broker " + name + " failed: " + Throwables.formatAsOneLine(t));
+        }
+      });
+    }
+
+    @Override
+    public synchronized void connected() {
+      reconnectDelayNanos = INITIAL_RECONNECT_DELAY_NANOS;
+      lastConnectNanos = System.nanoTime() - attemptNanos;
+      connects.increment();
+
+      LOGGER.log(Level.INFO, "Connected to MQTT broker " + name + " in " + TimeUnit.NANOSECONDS.toMillis(lastConnectNanos) + " ms");
+
+      synchronized(subscriptions) {
+        subscriptions.keySet().forEach(this::renew);  // sessions are not persisted by the broker
+      }
+    }
+
+    @Override
+    public synchronized long disconnected(Throwable cause) {
+      if(released) {
+        return -1;
+      }
+
+      long delayNanos = reconnectDelayNanos;
+
+      reconnectDelayNanos = Math.min(MAX_RECONNECT_DELAY_NANOS, delayNanos * 2);
+      attemptNanos = System.nanoTime() + delayNanos;
+      disconnects.increment();
+
+      LOGGER.log(Level.WARNING, "Disconnected from MQTT broker " + name + ", retrying in " + TimeUnit.NANOSECONDS.toMillis(delayNanos) + " ms: " + Throwables.formatAsOneLine(cause));
+
+      return delayNanos;
+    }
+
+    @Override
+    public void received(Mqtt5Publish publish) {
+      subscriptions.forEach((topicFilter, listeners) -> {
+        if(MqttTopicFilter.of(topicFilter).matches(publish.getTopic())) {
+          listeners.forEach(listener -> listener.accept(publish));
+        }
+      });
+    }
+
+    private void unsubscribe(String topicFilter, Consumer<Mqtt5Publish> listener) {
+      synchronized(subscriptions) {
+        Set<Consumer<Mqtt5Publish>> listeners = subscriptions.get(topicFilter);
+
+        if(listeners == null || !listeners.remove(listener) || !listeners.isEmpty()) {
+          return;
+        }
+
+        subscriptions.remove(topicFilter);
+        client.unsubscribe(topicFilter);
+      }
+    }
+
+    private void renew(String topicFilter) {
+      client.subscribe(topicFilter).whenComplete((v, t) -> {
+        if(t != null) {
+          LOGGER.log(Level.WARNING, "Unable to subscribe to " + topicFilter + " on MQTT broker " + name + ": " + Throwables.formatAsOneLine(t));
+        }
+      });
+    }
+  }
+
+  // Reconnects are scheduled by the listener instead of the client, so a released connection stops trying:
+  private static class HiveMqClient implements Client {
+    private final Mqtt5AsyncClient client;
+
+    HiveMqClient(String identifier, String host, int port, Listener listener) {
+      this.client = Mqtt5Client.builder()
+        .identifier(identifier)
+        .serverHost(host)
+        .serverPort(port)
+        .addConnectedListener(context -> listener.connected())
+        .addDisconnectedListener(context -> {
+          long delayNanos = listener.disconnected(context.getCause());
+
+          if(delayNanos >= 0) {
+            context.getReconnector().reconnect(true).delay(delayNanos, TimeUnit.NANOSECONDS);
+          }
+        })
+        .buildAsync();
+
+      client.publishes(MqttGlobalPublishFilter.SUBSCRIBED, listener::received);
+    }
+
+    @Override
+    public CompletableFuture<Void> connect() {
+      return client.connect().thenApply(connAck -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> disconnect() {
+      return client.disconnect();
+    }
+
+    @Override
+    public CompletableFuture<Mqtt5PublishResult> publish(Mqtt5Publish publish) {
+      return client.publish(publish);
+    }
+
+    @Override
+    public CompletableFuture<Void> subscribe(String topicFilter) {
+      return client.subscribeWith().topicFilter(topicFilter).send().thenApply(subAck -> null);
+    }
+
+    @Override
+    public CompletableFuture<Void> unsubscribe(String topicFilter) {
+      return client.unsubscribeWith().topicFilter(topicFilter).send().thenApply(unsubAck -> null);
+    }
+
+    @Override
+    public boolean isConnected() {
+      return client.getState().isConnected();
+    }
+  }
+}
@@ -1,83 +1,159 @@
 package org.int4.nexus.core.handler;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.hivemq.client.mqtt.MqttGlobalPublishFilter;
 import com.hivemq.client.mqtt.datatypes.MqttQos;
-import com.hivemq.client.mqtt.mqtt5.Mqtt5BlockingClient;
-import com.hivemq.client.mqtt.mqtt5.Mqtt5Client;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishBuilder;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
 
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.int4.nexus.core.api.Action;
 import org.int4.nexus.core.api.TerminalActionHandler;
 
 public class MqttProtocolHandler implements TerminalActionHandler {
-  public record Parameters(String id, @JsonProperty("max-delay") int maxDelay, @JsonProperty("result-topic") String resultTopic) {}
+  public enum Mode {
 
-  private final Map<String, Mqtt5BlockingClient> clients = new HashMap<>();
-  private final Semaphore semaphore = new Semaphore(0);
-  private final Parameters parameters;
+    @JsonProperty("blocking") BLOCKING,
+
+    @JsonProperty("async") ASYNC
+  }
+
+  public record Parameters(
+    String id,
+    Mode mode,
+    @JsonProperty("max-delay") int maxDelay,
+    @JsonProperty("result-topic") String resultTopic,
+    @JsonProperty("rate-limit") double rateLimit,
+    int burst,
+    @JsonProperty("max-wait") int maxWait,
+    ShedPolicy shed
+  ) {}
+
+  private static final Logger LOGGER = System.getLogger(MqttProtocolHandler.class.getName());
+  private static final AtomicLong CORRELATION_IDS = new AtomicLong();
+  private static final MqttConnectionManager CONNECTION_MANAGER = new MqttConnectionManager();
+
+  private final Map<String, Broker> brokers = new ConcurrentHashMap<>();
+  private final EndpointRateLimits rateLimits;
+  private final Mode mode;
+  private final long maxDelay;
+  private final String resultTopic;
 
   public MqttProtocolHandler(Parameters parameters) {
-    this.parameters = parameters;
+    this.mode = parameters.mode == null ? Mode.BLOCKING : parameters.mode;
+    this.maxDelay = parameters.maxDelay == 0 ? 250 : parameters.maxDelay;
+    this.resultTopic = parameters.resultTopic;
+    this.rateLimits = new EndpointRateLimits(parameters.id, parameters.rateLimit, parameters.burst, parameters.maxWait, parameters.shed);
   }
 
   @Override
   public void accept(Action action) {
-    URI uri = action.uri();
+    publish(action).join();
+  }
 
-    if(!uri.getScheme().equals("mqtt")) {
-      throw new IllegalArgumentException("only mqtt scheme is supported: " + uri);
-    }
+  @Override
+  public CompletableFuture<Void> submit(Action action) {
+    return mode == Mode.BLOCKING ? TerminalActionHandler.super.submit(action) : publish(action);
+  }
 
-    String clientIdentifier = uri.getHost() + ":" + (uri.getPort() == -1 ? 1883 : uri.getPort());
-    Mqtt5BlockingClient client = clients.computeIfAbsent(clientIdentifier, k -> {
-      Mqtt5BlockingClient c = Mqtt5Client.builder()
-        .identifier("Nexus")
-        .serverHost(uri.getHost())
-        .serverPort(uri.getPort() == -1 ? 1883 : uri.getPort())
-        .buildBlocking();
+  @Override
+  public long admit(Action action) {
+    return rateLimits.reserve(target(action));
+  }
 
-      c.connect();
+  @Override
+  public String target(Action action) {
+    URI uri = action.uri();
 
-      if(parameters.resultTopic != null) {
-        c.subscribeWith().topicFilter(parameters.resultTopic).send();
-        c.toAsync().publishes(MqttGlobalPublishFilter.ALL, msg -> semaphore.release());
-      }
+    return uri.getScheme() + "://" + brokerKey(uri) + uri.getPath();
+  }
 
-      return c;
-    });
+  @Override
+  public void prepare(Action action) {
+    getBroker(action.uri());
+  }
 
-    if(!client.getState().isConnectedOrReconnect()) {
-      client.connect();
-    }
+  @Override
+  public void close() {
+    brokers.values().forEach(Broker::close);  // connections are shared, and only closed when no handler uses them
+    brokers.clear();
+  }
+
+  private CompletableFuture<Void> publish(Action action) {
+    URI uri = action.uri();
 
-    semaphore.drainPermits();
+    if(!uri.getScheme().equals("mqtt")) {
+      throw new IllegalArgumentException("only mqtt scheme is supported: " + uri);
+    }
 
-    client.publishWith()
+    Broker broker = getBroker(uri);
+    Mqtt5PublishBuilder.Complete builder = Mqtt5Publish.builder()
       .topic(uri.getPath().substring(1))
       .qos(MqttQos.AT_LEAST_ONCE)
       .payload(action.payload().getBytes(StandardCharsets.UTF_8))
       .retain(false)
-      .messageExpiryInterval(1)
-      .send();
+      .messageExpiryInterval(1);
+
+    if(resultTopic == null) {  // give the device time to process the command
+      return broker.results.delay(broker.connection.publish(builder.build()));
+    }
+
+    ByteBuffer correlationData = ByteBuffer.allocate(Long.BYTES).putLong(0, CORRELATION_IDS.incrementAndGet());
+    CompletableFuture<Mqtt5PublishResult> published = new CompletableFuture<>();
+    CompletableFuture<Void> result = broker.results.track(action.payload(), correlationData, published);
+
+    // Tracked before publishing, so a fast result can't arrive before its message is known:
+    broker.connection.publish(builder.responseTopic(resultTopic).correlationData(correlationData).build())
+      .whenComplete((r, t) -> {
+        if(t != null) {
+          published.completeExceptionally(t);
+        }
+        else {
+          published.complete(r);
+        }
+      });
+
+    return result;
+  }
 
-    /*
-     * Below the command is delayed (up to a maximum) or until a publish is received on
-     * a specific topic. As the system is single threaded, any concurrent command will
-     * wait until the MQTT command has fully completed.
-     */
+  private Broker getBroker(URI uri) {
+    int port = uri.getPort() == -1 ? 1883 : uri.getPort();
 
-    try {
-      semaphore.tryAcquire(parameters.maxDelay != 0 ? parameters.maxDelay : 250, TimeUnit.MILLISECONDS);
+    return brokers.computeIfAbsent(brokerKey(uri), k -> new Broker(CONNECTION_MANAGER.acquire(uri.getHost(), port)));
+  }
+
+  private static String brokerKey(URI uri) {
+    return uri.getHost() + ":" + (uri.getPort() == -1 ? 1883 : uri.getPort());
+  }
+
+  private class Broker {
+    final MqttConnectionManager.Connection connection;
+    final ResultTracker results = new ResultTracker(maxDelay);
+    final Runnable unsubscriber;
+
+    Broker(MqttConnectionManager.Connection connection) {
+      this.connection = connection;
+      this.unsubscriber = resultTopic == null ? () -> {} : connection.subscribe(resultTopic, this::onResult);
     }
-    catch(InterruptedException e) {
-      Thread.currentThread().interrupt();
+
+    void close() {
+      unsubscriber.run();
+      connection.release();
+    }
+
+    private void onResult(Mqtt5Publish publish) {
+      if(!results.complete(publish.getCorrelationData(), new String(publish.getPayloadAsBytes(), StandardCharsets.UTF_8))) {
+        LOGGER.log(Level.DEBUG, "Ignoring result which matches no pending message: " + publish);
+      }
     }
   }
 }
@@ -0,0 +1,82 @@
+package org.int4.nexus.core.handler;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+class ResultTracker {
+  private final Deque<Request> pendingRequests = new ArrayDeque<>();  // guarded by itself
+  private final long maxDelay;
+
+  private record Request(String payload, ByteBuffer correlationData, CompletableFuture<Void> future) {}
+
+  ResultTracker(long maxDelay) {
+    this.maxDelay = maxDelay;
+  }
+
+  CompletableFuture<Void> track(String payload, ByteBuffer correlationData, CompletableFuture<?> published) {
+    Request request = new Request(payload, correlationData, new CompletableFuture<>());
+
+    synchronized(pendingRequests) {
+      pendingRequests.add(request);
+    }
+
+    published.whenComplete((result, t) -> {
+      if(t != null) {
+        request.future.completeExceptionally(t);
+      }
+      else {
+        request.future.completeOnTimeout(null, maxDelay, TimeUnit.MILLISECONDS);
+      }
+    });
+
+    return request.future.whenComplete((v, t) -> {
+      synchronized(pendingRequests) {
+        pendingRequests.remove(request);
+      }
+    });
+  }
+
+  CompletableFuture<Void> delay(CompletableFuture<?> published) {
+    CompletableFuture<Void> future = new CompletableFuture<>();
+
+    published.whenComplete((result, t) -> {
+      if(t != null) {
+        future.completeExceptionally(t);
+      }
+      else {
+        future.completeOnTimeout(null, maxDelay, TimeUnit.MILLISECONDS);
+      }
+    });
+
+    return future;
+  }
+
+  boolean complete(Optional<ByteBuffer> correlationData, String payload) {
+    Request request = match(correlationData, payload);
+
+    return request != null && request.future.complete(null);
+  }
+
+  private Request match(Optional<ByteBuffer> correlationData, String payload) {
+    synchronized(pendingRequests) {
+      for(Iterator<Request> iterator = pendingRequests.iterator(); iterator.hasNext();) {
+        Request request = iterator.next();
+
+        if(correlationData.isPresent()
+            ? request.correlationData.equals(correlationData.get())
+            : !request.payload.isEmpty() && payload.contains(request.payload)) {
+          iterator.remove();
+
+          return request;
+        }
+      }
+
+      return correlationData.isPresent() ? null : pendingRequests.poll();  // with correlation data a late result, without it likely a device which does not repeat what was sent
+    }
+  }
+}
@@ -0,0 +1,10 @@
+package org.int4.nexus.core.handler;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public enum ShedPolicy {
+
+  @JsonProperty("drop") DROP,
+
+  @JsonProperty("wait") WAIT
+}
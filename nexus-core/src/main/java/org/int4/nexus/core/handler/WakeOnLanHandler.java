@@ -7,19 +7,18 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.util.HexFormat;
-import java.util.Optional;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.int4.nexus.core.api.Action;
-import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.api.TerminalActionHandler;
 
-public class WakeOnLanHandler implements ActionHandler {
+public class WakeOnLanHandler implements TerminalActionHandler {
   private static final Pattern PATTERN = Pattern.compile("([0-9a-fA-F]{12}):([0-9\\.]+)");
   private static final Logger LOGGER = System.getLogger(WakeOnLanHandler.class.getName());
 
   @Override
-  public Optional<Action> handle(Action action) {
+  public void accept(Action action) {
     Matcher matcher = PATTERN.matcher(action.uri().getSchemeSpecificPart());
 
     if(!matcher.matches()) {
@@ -35,8 +34,13 @@ public class WakeOnLanHandler implements ActionHandler {
     catch(IOException e) {
       throw new IllegalStateException("Unable to send wake-on-lan: " + action, e);
     }
+  }
+
+  @Override
+  public String target(Action action) {
+    Matcher matcher = PATTERN.matcher(action.uri().getSchemeSpecificPart());
 
-    return Optional.empty();
+    return matcher.matches() ? action.uri().getScheme() + ":" + matcher.group(2) : action.uri().getScheme();
   }
 
   private static void wake(String mac, String broadcastIp) throws IOException {
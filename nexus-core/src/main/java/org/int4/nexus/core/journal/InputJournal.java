@@ -0,0 +1,166 @@
+package org.int4.nexus.core.journal;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.net.URI;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.util.Metrics;
+import org.int4.nexus.core.util.Throwables;
+
+public class InputJournal implements AutoCloseable {
+  // After the header, each entry has its length (int), time (long), connector id, input count (unsigned short) and
+  // inputs; strings are an unsigned short length and UTF-8 bytes. The length is written last, and the file is extended
+  // with zeroes, so a journal which was not closed properly ends at the first zero length.
+  static final long MAGIC = 0x4E584A4F55524E4CL;  // "NXJOURNL"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 24;
+
+  private static final Logger LOGGER = System.getLogger(InputJournal.class.getName());
+  private static final int REGION_SIZE = 1024 * 1024;
+
+  private final Path path;
+  private final FileChannel channel;
+  private final long startNanos;
+  private final LongAdder entries = Metrics.counter("journal.entries");
+  private final LongAdder dropped = Metrics.counter("journal.dropped");
+
+  private MappedByteBuffer region;  // guarded by this
+  private long regionStart;  // guarded by this
+
+  public static InputJournal create(Path path) throws IOException {
+    return new InputJournal(path);
+  }
+
+  private InputJournal(Path path) throws IOException {
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.startNanos = System.nanoTime();
+
+    map(0);
+
+    region.putLong(MAGIC).putInt(VERSION).putInt(0).putLong(System.currentTimeMillis());
+
+    LOGGER.log(Level.INFO, "Journaling inputs to " + path);
+  }
+
+  public InputSink wrap(String connectorId, InputSink sink) {
+    return new InputSink() {
+      @Override
+      public void accept(URI input) {
+        append(connectorId, List.of(input));
+        sink.accept(input);
+      }
+
+      @Override
+      public void acceptAll(List<URI> inputs) {
+        append(connectorId, inputs);
+        sink.acceptAll(inputs);
+      }
+
+      @Override
+      public void acceptKeys(long[] keys, int count, InputCodec codec) {
+        List<URI> inputs = new ArrayList<>(count);
+
+        for(int i = 0; i < count; i++) {
+          inputs.add(codec.decode(keys[i]));
+        }
+
+        append(connectorId, inputs);
+        sink.acceptKeys(keys, count, codec);
+      }
+    };
+  }
+
+  public void append(String connectorId, List<URI> inputs) {
+    byte[] id = connectorId.getBytes(StandardCharsets.UTF_8);
+    byte[][] uris = new byte[inputs.size()][];
+    int size = Integer.BYTES + Long.BYTES + Short.BYTES + id.length + Short.BYTES;
+    int longest = id.length;
+
+    for(int i = 0; i < uris.length; i++) {
+      uris[i] = inputs.get(i).toString().getBytes(StandardCharsets.UTF_8);
+      size += Short.BYTES + uris[i].length;
+      longest = Math.max(longest, uris[i].length);
+    }
+
+    if(size > REGION_SIZE || longest > 0xffff || uris.length > 0xffff) {
+      LOGGER.log(Level.WARNING, "Input too large for journal, dropped: " + inputs);
+      dropped.increment();
+
+      return;
+    }
+
+    synchronized(this) {
+      if(region == null) {
+        dropped.increment();  // closed
+
+        return;
+      }
+
+      try {
+        if(region.remaining() < size) {
+          map(regionStart + region.position());
+        }
+
+        int start = region.position();
+
+        region.position(start + Integer.BYTES);
+        region.putLong(System.nanoTime() - startNanos);
+        putBytes(id);
+        region.putShort((short)uris.length);
+
+        for(byte[] uri : uris) {
+          putBytes(uri);
+        }
+
+        region.putInt(start, size - Integer.BYTES);  // written last, so a partial entry is never read
+        entries.increment();
+      }
+      catch(IOException e) {
+        LOGGER.log(Level.WARNING, "Unable to append to journal " + path + ": " + Throwables.formatAsOneLine(e));
+        dropped.increment();
+      }
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if(region == null) {
+      return;
+    }
+
+    try {
+      long end = regionStart + region.position();
+
+      region.force();
+      region = null;
+
+      channel.truncate(end);
+      channel.close();
+    }
+    catch(IOException e) {
+      LOGGER.log(Level.WARNING, "Unable to close journal " + path + ": " + Throwables.formatAsOneLine(e));
+    }
+  }
+
+  private void putBytes(byte[] bytes) {
+    region.putShort((short)bytes.length);
+    region.put(bytes);
+  }
+
+  private void map(long position) throws IOException {
+    region = channel.map(FileChannel.MapMode.READ_WRITE, position, REGION_SIZE);  // extends the file with zeroes
+    regionStart = position;
+  }
+}
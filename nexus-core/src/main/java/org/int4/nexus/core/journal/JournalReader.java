@@ -0,0 +1,101 @@
+package org.int4.nexus.core.journal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JournalReader implements AutoCloseable {
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final Instant created;
+
+  public record Entry(long nanos, String connectorId, List<URI> inputs) {}
+
+  public static JournalReader open(Path path) throws IOException {
+    return new JournalReader(path);
+  }
+
+  private JournalReader(Path path) throws IOException {
+    this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+    try {
+      if(channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Journal too large: " + path);
+      }
+
+      this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+      if(buffer.remaining() < InputJournal.HEADER_SIZE || buffer.getLong() != InputJournal.MAGIC) {
+        throw new IOException("Not a journal: " + path);
+      }
+
+      int version = buffer.getInt();
+
+      if(version != InputJournal.VERSION) {
+        throw new IOException("Unsupported journal version " + version + ": " + path);
+      }
+
+      buffer.getInt();  // reserved
+
+      this.created = Instant.ofEpochMilli(buffer.getLong());
+    }
+    catch(IOException e) {
+      channel.close();
+
+      throw e;
+    }
+  }
+
+  public Instant created() {
+    return created;
+  }
+
+  public Entry next() throws IOException {
+    if(buffer.remaining() < Integer.BYTES) {
+      return null;
+    }
+
+    int length = buffer.getInt();
+
+    if(length <= 0 || length > buffer.remaining()) {
+      return null;  // unused space of a journal which was not closed
+    }
+
+    try {
+      long nanos = buffer.getLong();
+      String connectorId = getString();
+      int count = Short.toUnsignedInt(buffer.getShort());
+      List<URI> inputs = new ArrayList<>(count);
+
+      for(int i = 0; i < count; i++) {
+        inputs.add(new URI(getString()));
+      }
+
+      return new Entry(nanos, connectorId, inputs);
+    }
+    catch(URISyntaxException | RuntimeException e) {
+      throw new IOException("Corrupt journal entry", e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private String getString() {
+    byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+
+    buffer.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,9 @@
+package org.int4.nexus.core.state;
+
+import java.util.Map;
+import java.util.Set;
+
+public record RuntimeState(String activity, Set<String> poweredDevices, Set<String> unsettledDevices, Map<String, Map<String, String>> deviceStates) {
+
+  public static final RuntimeState EMPTY = new RuntimeState(null, Set.of(), Set.of(), Map.of());
+}
@@ -0,0 +1,236 @@
+package org.int4.nexus.core.state;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+import org.int4.nexus.core.util.Metrics;
+
+public class StateFile implements AutoCloseable {
+  // After the header, two slots are written in turn, each with a sequence number, length and CRC32C checksum, so an
+  // interrupted write leaves the previous state in the other slot; the valid slot with the highest sequence wins.
+  static final long MAGIC = 0x4E58535441544531L;  // "NXSTATE1"
+  static final int VERSION = 1;
+  static final int HEADER_SIZE = 16;
+  static final int SLOT_SIZE = 32 * 1024;
+  static final int SLOT_HEADER_SIZE = Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+  private static final Logger LOGGER = System.getLogger(StateFile.class.getName());
+
+  private final Path path;
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final LongAdder writes = Metrics.counter("state.writes");
+
+  private long sequence;  // of the last state read or written
+  private RuntimeState state = RuntimeState.EMPTY;  // last state read or written
+
+  public static StateFile open(Path path) throws IOException {
+    return new StateFile(path);
+  }
+
+  private StateFile(Path path) throws IOException {
+    this.path = path;
+    this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+    boolean created = channel.size() == 0;
+
+    if(!created) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+      channel.read(header, 0);
+
+      if(header.getLong(0) != MAGIC || header.getInt(Long.BYTES) != VERSION) {
+        channel.close();
+
+        throw new IOException("Not a state file of version " + VERSION + ": " + path);  // checked before mapping, which would extend the file
+      }
+    }
+
+    this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + 2 * SLOT_SIZE);  // extends the file with zeroes
+
+    if(created) {
+      buffer.putLong(0, MAGIC).putInt(Long.BYTES, VERSION);
+      buffer.force();
+    }
+    else {
+      for(int slot = 0; slot < 2; slot++) {
+        readSlot(slot);
+      }
+    }
+  }
+
+  public synchronized RuntimeState read() {
+    return state;
+  }
+
+  public synchronized void write(RuntimeState newState) throws IOException {
+    if(newState.equals(state)) {
+      return;
+    }
+
+    ByteBuffer slot = slot((int)((sequence + 1) % 2));
+
+    try {
+      slot.position(SLOT_HEADER_SIZE);
+
+      encode(slot, newState);
+    }
+    catch(RuntimeException e) {  // BufferOverflowException or IllegalArgumentException
+      throw new IOException("State too large for " + path + ": " + newState, e);
+    }
+
+    int length = slot.position() - SLOT_HEADER_SIZE;
+
+    slot.putLong(0, sequence + 1).putInt(Long.BYTES, length).putInt(Long.BYTES + Integer.BYTES, checksum(slot, length));
+    buffer.force();
+
+    sequence++;
+    state = newState;
+    writes.increment();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    channel.close();
+  }
+
+  private void readSlot(int index) {
+    ByteBuffer slot = slot(index);
+    long slotSequence = slot.getLong(0);
+    int length = slot.getInt(Long.BYTES);
+
+    if(slotSequence <= sequence || length < 0 || length > SLOT_SIZE - SLOT_HEADER_SIZE) {
+      return;
+    }
+
+    if(slot.getInt(Long.BYTES + Integer.BYTES) != checksum(slot, length)) {
+      LOGGER.log(Level.WARNING, "Ignoring state " + slotSequence + " in " + path + " with an invalid checksum, likely it was being written when stopped");
+
+      return;
+    }
+
+    try {
+      state = decode(slot.position(SLOT_HEADER_SIZE).limit(SLOT_HEADER_SIZE + length));
+      sequence = slotSequence;
+    }
+    catch(BufferUnderflowException e) {
+      LOGGER.log(Level.WARNING, "Ignoring state " + slotSequence + " in " + path + " which is truncated");
+    }
+  }
+
+  private ByteBuffer slot(int index) {
+    return buffer.slice(HEADER_SIZE + index * SLOT_SIZE, SLOT_SIZE);
+  }
+
+  // Covers the sequence number, the length and the state, but not the checksum itself:
+  private static int checksum(ByteBuffer slot, int length) {
+    CRC32C crc = new CRC32C();
+
+    crc.update(slot.slice(0, Long.BYTES + Integer.BYTES));
+    crc.update(slot.slice(SLOT_HEADER_SIZE, length));
+
+    return (int)crc.getValue();
+  }
+
+  private static void encode(ByteBuffer buffer, RuntimeState state) {
+    buffer.put((byte)(state.activity() == null ? 0 : 1));
+
+    if(state.activity() != null) {
+      putString(buffer, state.activity());
+    }
+
+    putCount(buffer, state.poweredDevices().size());
+
+    for(String id : state.poweredDevices()) {
+      putString(buffer, id);
+    }
+
+    putCount(buffer, state.deviceStates().size());
+
+    for(Map.Entry<String, Map<String, String>> entry : state.deviceStates().entrySet()) {
+      putString(buffer, entry.getKey());
+      putCount(buffer, entry.getValue().size());
+
+      for(Map.Entry<String, String> property : entry.getValue().entrySet()) {
+        putString(buffer, property.getKey());
+        putString(buffer, property.getValue());
+      }
+    }
+
+    putCount(buffer, state.unsettledDevices().size());
+
+    for(String id : state.unsettledDevices()) {
+      putString(buffer, id);
+    }
+  }
+
+  private static RuntimeState decode(ByteBuffer buffer) {
+    String activity = buffer.get() == 0 ? null : getString(buffer);
+    Set<String> poweredDevices = new HashSet<>();
+    Map<String, Map<String, String>> deviceStates = new HashMap<>();
+
+    for(int i = getCount(buffer); i > 0; i--) {
+      poweredDevices.add(getString(buffer));
+    }
+
+    for(int i = getCount(buffer); i > 0; i--) {
+      String id = getString(buffer);
+      Map<String, String> properties = new HashMap<>();
+
+      for(int j = getCount(buffer); j > 0; j--) {
+        properties.put(getString(buffer), getString(buffer));
+      }
+
+      deviceStates.put(id, Map.copyOf(properties));
+    }
+
+    Set<String> unsettledDevices = new HashSet<>();
+
+    for(int i = buffer.hasRemaining() ? getCount(buffer) : 0; i > 0; i--) {
+      unsettledDevices.add(getString(buffer));
+    }
+
+    return new RuntimeState(activity, Set.copyOf(poweredDevices), Set.copyOf(unsettledDevices), Map.copyOf(deviceStates));
+  }
+
+  private static void putCount(ByteBuffer buffer, int count) {
+    if(count > 0xffff) {
+      throw new IllegalArgumentException("Too many entries: " + count);
+    }
+
+    buffer.putShort((short)count);
+  }
+
+  private static int getCount(ByteBuffer buffer) {
+    return Short.toUnsignedInt(buffer.getShort());
+  }
+
+  private static void putString(ByteBuffer buffer, String text) {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+
+    putCount(buffer, bytes.length);
+    buffer.put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    byte[] bytes = new byte[getCount(buffer)];
+
+    buffer.get(bytes);
+
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,64 @@
+package org.int4.nexus.core.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("org.int4.nexus.Handler")
+@Label("Handler Execution")
+@Category({"Nexus", "Handler"})
+@Description("Execution of an action by its handler")
+@StackTrace(false)
+public final class HandlerEvent extends Event {
+  @Label("Trace Id")
+  private long traceId;
+
+  @Label("Target")
+  private String target;
+
+  @Label("Count")
+  @Description("Number of identical submissions executed as one")
+  private int count;
+
+  @Label("Lane Wait")
+  @Description("Time the action waited in the lane of its target")
+  @Timespan(Timespan.NANOSECONDS)
+  private long laneWait;
+
+  @Label("Since Capture")
+  @Description("Time between receiving the input which caused the action and the start of its execution")
+  @Timespan(Timespan.NANOSECONDS)
+  private long sinceCapture;
+
+  @Label("Failed")
+  private boolean failed;
+
+  public static HandlerEvent start(Trace trace, long laneWaitNanos) {
+    HandlerEvent event = new HandlerEvent();
+
+    if(event.isEnabled()) {
+      event.traceId = trace.id();
+      event.laneWait = laneWaitNanos;
+      event.sinceCapture = trace.sinceCaptureNanos();
+      event.begin();
+    }
+
+    return event;
+  }
+
+  public void complete(String target, int count, boolean failed) {
+    end();
+
+    if(shouldCommit()) {
+      this.target = target;
+      this.count = count;
+      this.failed = failed;
+
+      commit();
+    }
+  }
+}
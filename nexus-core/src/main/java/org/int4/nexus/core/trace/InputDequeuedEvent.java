@@ -0,0 +1,34 @@
+package org.int4.nexus.core.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("org.int4.nexus.InputDequeued")
+@Label("Input Dequeued")
+@Category({"Nexus", "Input"})
+@Description("The command processor started processing an input")
+@StackTrace(false)
+public final class InputDequeuedEvent extends Event {
+  @Label("Trace Id")
+  private long traceId;
+
+  @Label("Queue Time")
+  @Description("Time between receiving the input and starting to process it")
+  @Timespan(Timespan.NANOSECONDS)
+  private long queueTime;
+
+  public static void commit(Trace trace) {
+    InputDequeuedEvent event = new InputDequeuedEvent();
+
+    if(event.shouldCommit()) {
+      event.traceId = trace.id();
+      event.queueTime = trace.sinceCaptureNanos();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package org.int4.nexus.core.trace;
+
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.int4.nexus.InputDropped")
+@Label("Input Dropped")
+@Category({"Nexus", "Input"})
+@Description("An input from a connector was dropped, as the command processor could not admit it in time")
+@StackTrace(false)
+public final class InputDroppedEvent extends Event {
+  @Label("Trace Id")
+  private long traceId;
+
+  @Label("Input")
+  private String input;
+
+  public static void commit(Trace trace, Supplier<?> input) {
+    InputDroppedEvent event = new InputDroppedEvent();
+
+    if(event.shouldCommit()) {
+      event.traceId = trace.id();
+      event.input = String.valueOf(input.get());
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package org.int4.nexus.core.trace;
+
+import java.net.URI;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.int4.nexus.Resolution")
+@Label("Resolution")
+@Category({"Nexus", "Resolution"})
+@Description("Resolving a chain of actions at execution time")
+@StackTrace(false)
+public final class ResolutionEvent extends Event {
+  @Label("Trace Id")
+  private long traceId;
+
+  @Label("Action")
+  private String action;
+
+  @Label("Hops")
+  private int hops;
+
+  @Label("Problem")
+  private String problem;
+
+  public void complete(Trace trace, URI action, int hops, String problem) {
+    end();
+
+    if(shouldCommit()) {
+      this.traceId = trace.id();
+      this.action = action.toString();
+      this.hops = hops;
+      this.problem = problem;
+
+      commit();
+    }
+  }
+}
@@ -0,0 +1,31 @@
+package org.int4.nexus.core.trace;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("org.int4.nexus.ResolutionHop")
+@Label("Resolution Hop")
+@Category({"Nexus", "Resolution"})
+@Description("A hop of a chain of actions which is being executed")
+@StackTrace(false)
+public final class ResolutionHopEvent extends Event {
+  @Label("Trace Id")
+  private long traceId;
+
+  @Label("Hop")
+  private String hop;
+
+  public static void commit(Trace trace, String hop) {
+    ResolutionHopEvent event = new ResolutionHopEvent();
+
+    if(event.shouldCommit()) {
+      event.traceId = trace.id();
+      event.hop = hop.strip();
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,17 @@
+package org.int4.nexus.core.trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+public record Trace(long id, long captureNanos) {
+  private static final AtomicLong IDS = new AtomicLong();
+
+  public static final Trace NONE = new Trace(0, 0);
+
+  public static Trace start() {
+    return new Trace(IDS.incrementAndGet(), System.nanoTime());
+  }
+
+  public long sinceCaptureNanos() {
+    return id == 0 ? 0 : System.nanoTime() - captureNanos;
+  }
+}
@@ -0,0 +1,150 @@
+package org.int4.nexus.core.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+public class AsyncLogHandler extends Handler {
+  private static final int BATCH_SIZE = 256;
+
+  private final BlockingQueue<Entry> queue;
+  private final OverflowPolicy overflowPolicy;
+  private final MyLoggingFormatter formatter;
+  private final Writer writer;
+  private final Thread thread;
+  private final LongAdder dropped = Metrics.counter("log.dropped");
+
+  private volatile boolean closed;
+
+  public enum OverflowPolicy {
+
+    DROP,
+
+    BLOCK
+  }
+
+  // The thread name must be captured when logging, as the record is formatted on another thread:
+  private record Entry(LogRecord record, String threadName) {}
+
+  public AsyncLogHandler(OutputStream out, Charset charset, MyLoggingFormatter formatter, int capacity, OverflowPolicy overflowPolicy) {
+    this.queue = new ArrayBlockingQueue<>(capacity);
+    this.overflowPolicy = overflowPolicy;
+    this.formatter = formatter;
+    this.writer = new OutputStreamWriter(out, charset);
+    this.thread = Thread.ofPlatform().daemon().name("log-writer").start(this::run);
+
+    setFormatter(formatter);
+  }
+
+  @Override
+  public void publish(LogRecord record) {
+    if(closed || !isLoggable(record)) {
+      return;
+    }
+
+    Entry entry = new Entry(record, Thread.currentThread().getName());
+
+    if(overflowPolicy == OverflowPolicy.DROP) {
+      if(!queue.offer(entry)) {
+        dropped.increment();
+      }
+
+      return;
+    }
+
+    try {
+      queue.put(entry);
+    }
+    catch(InterruptedException e) {
+      dropped.increment();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void flush() {
+    // the writer flushes whenever it has written all waiting records
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+
+    thread.interrupt();
+
+    try {
+      thread.join(TimeUnit.SECONDS.toMillis(5));
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void run() {
+    List<Entry> batch = new ArrayList<>(BATCH_SIZE);
+    StringBuilder builder = new StringBuilder(4096);
+    char[] chars = new char[4096];
+    long reportedDrops = dropped.sum();  // the counter is shared with earlier handlers
+
+    while(!closed || !queue.isEmpty()) {
+      try {
+        if(queue.isEmpty()) {
+          writer.flush();
+
+          if(!closed) {
+            batch.add(queue.take());
+          }
+        }
+
+        queue.drainTo(batch, BATCH_SIZE - batch.size());
+
+        long drops = dropped.sum();
+
+        if(drops != reportedDrops) {
+          builder.append("[").append(drops - reportedDrops).append(" log records were dropped]\n");
+          reportedDrops = drops;
+        }
+
+        for(Entry entry : batch) {
+          formatter.format(entry.record, entry.threadName, builder);
+        }
+
+        batch.clear();
+
+        if(chars.length < builder.length()) {
+          chars = new char[Math.max(builder.length(), chars.length * 2)];
+        }
+
+        builder.getChars(0, builder.length(), chars, 0);
+        writer.write(chars, 0, builder.length());
+        builder.setLength(0);
+      }
+      catch(InterruptedException e) {
+        // closed, write remaining records
+      }
+      catch(IOException | RuntimeException e) {
+        batch.clear();
+        builder.setLength(0);
+        reportError(null, e, ErrorManager.WRITE_FAILURE);
+      }
+    }
+
+    try {
+      writer.flush();
+    }
+    catch(IOException e) {
+      reportError(null, e, ErrorManager.FLUSH_FAILURE);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package org.int4.nexus.core.util;
+
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+public class FileWatcher {
+  private static final Logger LOGGER = System.getLogger(FileWatcher.class.getName());
+
+  public static void watch(Path file, Duration settleTime, Runnable onChange) throws IOException {
+    Path absoluteFile = file.toAbsolutePath();
+    WatchService watchService = FileSystems.getDefault().newWatchService();
+
+    absoluteFile.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+    Thread.ofVirtual().name("file-watcher:" + file).start(() -> {
+      try {
+        for(;;) {
+          if(isRelevant(watchService.take(), absoluteFile)) {
+            WatchKey key;
+
+            while((key = watchService.poll(settleTime.toNanos(), TimeUnit.NANOSECONDS)) != null) {
+              isRelevant(key, absoluteFile);  // drain events until file settles
+            }
+
+            onChange.run();
+          }
+        }
+      }
+      catch(InterruptedException e) {
+        LOGGER.log(Level.INFO, "Stopped watching " + absoluteFile);
+      }
+      catch(Exception e) {
+        LOGGER.log(Level.WARNING, "Stopped watching " + absoluteFile + " because: " + Throwables.formatAsOneLine(e));
+      }
+    });
+  }
+
+  private static boolean isRelevant(WatchKey key, Path file) {
+    boolean relevant = false;
+
+    for(WatchEvent<?> event : key.pollEvents()) {
+      if(event.context() instanceof Path path && path.equals(file.getFileName())) {
+        relevant = true;
+      }
+    }
+
+    key.reset();
+
+    return relevant;
+  }
+}
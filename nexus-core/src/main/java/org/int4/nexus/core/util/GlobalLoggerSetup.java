@@ -1,12 +1,14 @@
 package org.int4.nexus.core.util;
 
-import java.util.logging.ConsoleHandler;
+import java.util.Locale;
 import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.LogManager;
 import java.util.logging.Logger;
 
 public class GlobalLoggerSetup {
+  private static final int CAPACITY = 8192;
+
   public static void setupLogging() {
     try {
       LogManager logManager = LogManager.getLogManager();
@@ -16,11 +18,18 @@ public class GlobalLoggerSetup {
         rootLogger.removeHandler(handler);
       }
 
-      ConsoleHandler consoleHandler = new ConsoleHandler();
+      AsyncLogHandler.OverflowPolicy overflowPolicy = AsyncLogHandler.OverflowPolicy.valueOf(
+        System.getProperty("nexus.log.overflow", "drop").toUpperCase(Locale.ROOT)
+      );
+
+      // Same level as the console handler this replaces, so isLoggable guards skip debug records:
+      String configuredLevel = logManager.getProperty("java.util.logging.ConsoleHandler.level");
+      Level level = configuredLevel == null ? Level.INFO : Level.parse(configuredLevel.trim());
+      AsyncLogHandler handler = new AsyncLogHandler(System.err, System.err.charset(), new MyLoggingFormatter(), CAPACITY, overflowPolicy);
 
-      consoleHandler.setFormatter(new MyLoggingFormatter());
-      rootLogger.addHandler(consoleHandler);
-      rootLogger.setLevel(Level.ALL); // Set the desired log level
+      handler.setLevel(level);
+      rootLogger.addHandler(handler);
+      rootLogger.setLevel(level);
     }
     catch(Exception e) {
       throw new IllegalStateException(e);
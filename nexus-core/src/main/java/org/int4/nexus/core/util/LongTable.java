@@ -0,0 +1,52 @@
+package org.int4.nexus.core.util;
+
+import java.util.Map;
+
+public class LongTable<V> {
+  private static final LongTable<?> EMPTY = of(Map.of());
+
+  private final long[] keys;
+  private final Object[] values;
+  private final int mask;
+
+  @SuppressWarnings("unchecked")
+  public static <V> LongTable<V> empty() {
+    return (LongTable<V>)EMPTY;
+  }
+
+  public static <V> LongTable<V> of(Map<Long, V> map) {
+    return new LongTable<>(map);
+  }
+
+  private LongTable(Map<Long, ? extends V> map) {
+    int capacity = Integer.highestOneBit(Math.max(2, map.size() * 2 - 1)) << 1;  // load factor at most 0.5
+
+    this.keys = new long[capacity];
+    this.values = new Object[capacity];
+    this.mask = capacity - 1;
+
+    for(Map.Entry<Long, ? extends V> entry : map.entrySet()) {
+      int index = indexOf(entry.getKey());
+
+      keys[index] = entry.getKey();
+      values[index] = entry.getValue();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(long key) {
+    return (V)values[indexOf(key)];
+  }
+
+  // Returns the slot of the key, or the empty slot where it would be inserted:
+  private int indexOf(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    int index = (int)(hash ^ (hash >>> 32)) & mask;
+
+    while(values[index] != null && keys[index] != key) {
+      index = (index + 1) & mask;
+    }
+
+    return index;
+  }
+}
@@ -0,0 +1,39 @@
+package org.int4.nexus.core.util;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class Metrics {
+  private static final Map<String, LongSupplier> METRICS = new ConcurrentHashMap<>();
+  private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+  public static LongAdder counter(String name) {
+    return COUNTERS.computeIfAbsent(name, k -> {
+      LongAdder adder = new LongAdder();
+
+      METRICS.put(k, adder::sum);
+
+      return adder;
+    });
+  }
+
+  public static void gauge(String name, LongSupplier supplier) {
+    METRICS.put(name, supplier);
+  }
+
+  public static void unregister(String name, LongSupplier gauge) {
+    METRICS.remove(name, gauge);
+  }
+
+  public static SortedMap<String, Long> snapshot() {
+    SortedMap<String, Long> snapshot = new TreeMap<>();
+
+    METRICS.forEach((k, v) -> snapshot.put(k, v.getAsLong()));
+
+    return snapshot;
+  }
+}
@@ -2,9 +2,9 @@ package org.int4.nexus.core.util;
 
 import java.io.PrintWriter;
 import java.io.StringWriter;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.Map;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
@@ -15,6 +15,8 @@ public class MyLoggingFormatter extends Formatter {
   private static final int LOGGER_NAME_LENGTH_LIMIT = 30;
   private static final String PIPE = "\u2502";
   private static final String ELLIPSIS = "\u2026";
+  private static final DateTimeFormatter SECONDS_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+  private static final int TIME_LENGTH = "yyyy-MM-dd HH:mm:ss.SSS".length();
   private static final Map<Level, String> INDICATOR_BY_LEVEL = Map.of(
     Level.SEVERE, "\u203C",
     Level.WARNING, "!",
@@ -26,19 +28,30 @@ public class MyLoggingFormatter extends Formatter {
   );
 
   private final String emptyLine;
-  private final DateFormat dateFormat;
+  private final ZoneId zoneId = ZoneId.systemDefault();
+
+  private volatile Second second = new Second(Long.MIN_VALUE, "");
+
+  // The formatted date and time of the last second a record was formatted in:
+  private record Second(long epochSecond, String text) {}
 
   public MyLoggingFormatter() {
-    this.dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
-    this.emptyLine = ("%" + this.dateFormat.format(new Date()).length() + "s" + PIPE + "%1s" + PIPE + "%" + THREAD_NAME_LENGTH_LIMIT + "s" + PIPE + "%" + LOGGER_NAME_LENGTH_LIMIT + "s" + PIPE).formatted("", "", "", "");
+    this.emptyLine = ("%" + TIME_LENGTH + "s" + PIPE + "%1s" + PIPE + "%" + THREAD_NAME_LENGTH_LIMIT + "s" + PIPE + "%" + LOGGER_NAME_LENGTH_LIMIT + "s" + PIPE).formatted("", "", "", "");
   }
 
   @Override
   public String format(LogRecord logRecord) {
     StringBuilder builder = new StringBuilder();
 
+    format(logRecord, Thread.currentThread().getName(), builder);
+
+    return builder.toString();
+  }
+
+  public void format(LogRecord logRecord, String threadName, StringBuilder builder) {
+    appendTime(builder, logRecord.getInstant());
+
     builder
-      .append(dateFormat.format(new Date(logRecord.getMillis())))
       .append(PIPE)
       .append(INDICATOR_BY_LEVEL.get(logRecord.getLevel()))
       .append(PIPE);
@@ -47,7 +60,7 @@ public class MyLoggingFormatter extends Formatter {
 
     builder.append(PIPE);
 
-    appendPaddedAndLimited(builder, Thread.currentThread().getName(), THREAD_NAME_LENGTH_LIMIT);
+    appendPaddedAndLimited(builder, threadName, THREAD_NAME_LENGTH_LIMIT);
 
     builder.append(PIPE);
 
@@ -62,10 +75,28 @@ public class MyLoggingFormatter extends Formatter {
         logRecord.getThrown().printStackTrace(pw);
       }
 
-      builder.append(sw.toString()).append("\n");
+      builder.append(sw.getBuffer()).append("\n");
     }
+  }
 
-    return builder.toString();
+  private void appendTime(StringBuilder builder, Instant instant) {
+    long epochSecond = instant.getEpochSecond();
+    Second second = this.second;
+
+    if(second.epochSecond != epochSecond) {
+      second = new Second(epochSecond, SECONDS_FORMATTER.format(instant.atZone(zoneId)));
+
+      this.second = second;
+    }
+
+    int millis = instant.getNano() / 1_000_000;
+
+    builder
+      .append(second.text)
+      .append('.')
+      .append((char)('0' + millis / 100))
+      .append((char)('0' + millis / 10 % 10))
+      .append((char)('0' + millis % 10));
   }
 
   private static void appendPaddedAndLimited(StringBuilder builder, String text, int maxLength) {
@@ -75,7 +106,7 @@ public class MyLoggingFormatter extends Formatter {
       builder.append(text);
 
       for(int i = len; i < maxLength; i++) {
-        builder.append(" ");
+        builder.append(' ');
       }
     }
     else {
@@ -108,7 +139,7 @@ public class MyLoggingFormatter extends Formatter {
       builder.append(text, start, start + lengthNeeded);
 
       for(int i = lengthNeeded; i < lengthLeft; i++) {
-        builder.append(" ");
+        builder.append(' ');
       }
     }
     else {
@@ -124,7 +155,7 @@ public class MyLoggingFormatter extends Formatter {
 
     if(lineBreak >= 0) {
       int start = 0;
-      builder.append(message.substring(start, lineBreak));
+      builder.append(message, start, lineBreak);
 
       do {
         builder.append("\n");
@@ -133,7 +164,7 @@ public class MyLoggingFormatter extends Formatter {
         start = lineBreak + 1;
         lineBreak = message.indexOf('\n', start);
 
-        builder.append(message.substring(start, lineBreak == -1 ? message.length() : lineBreak));
+        builder.append(message, start, lineBreak == -1 ? message.length() : lineBreak);
       } while(lineBreak != -1);
     }
     else {
@@ -0,0 +1,65 @@
+package org.int4.nexus.core.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RateLimiter {
+  private final double tokensPerNano;
+  private final int burst;
+  private final LongAdder limited;
+  private final LongAdder waitNanos;
+  private final LongAdder shed;
+
+  private double tokens;  // guarded by this, negative when tokens are reserved by waiting actions
+  private long lastNanos;  // guarded by this
+
+  public RateLimiter(String name, double rate, int burst) {
+    if(!(rate > 0)) {
+      throw new IllegalArgumentException("rate must be positive: " + rate);
+    }
+    if(burst < 1) {
+      throw new IllegalArgumentException("burst must be positive: " + burst);
+    }
+
+    String prefix = "rate-limit." + name + ".";
+
+    this.tokensPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+    this.burst = burst;
+    this.limited = Metrics.counter(prefix + "limited");
+    this.waitNanos = Metrics.counter(prefix + "wait-nanos");
+    this.shed = Metrics.counter(prefix + "shed");
+    this.tokens = burst;
+    this.lastNanos = System.nanoTime();
+  }
+
+  public long reserve(long maxWaitNanos) {
+    long nanos = take(maxWaitNanos);
+
+    if(nanos < 0) {
+      shed.increment();
+    }
+    else if(nanos > 0) {
+      limited.increment();
+      waitNanos.add(nanos);
+    }
+
+    return nanos;
+  }
+
+  private synchronized long take(long maxWaitNanos) {
+    long now = System.nanoTime();
+
+    tokens = Math.min(burst, tokens + (now - lastNanos) * tokensPerNano);
+    lastNanos = now;
+
+    long nanos = tokens >= 1 ? 0 : (long)Math.ceil((1 - tokens) / tokensPerNano);
+
+    if(nanos > maxWaitNanos) {
+      return -1;
+    }
+
+    tokens--;
+
+    return nanos;
+  }
+}
@@ -0,0 +1,84 @@
+package org.int4.nexus.core;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActionResolverTest {
+  private final TerminalActionHandler http = action -> {};
+  private final Device yamaha = new Device(
+    "Yamaha",
+    List.of(),
+    List.of(),
+    Map.of(
+      "VOL_UP", new Action("irsend:NEC:32:5EA158A7:0"),
+      "LOOP", new Action("cmd:loop")
+    ),
+    List.of(),
+    Map.of()
+  );
+  private final Activity activity = new Activity(
+    "watch-tv",
+    "Watch TV",
+    List.of(yamaha),
+    List.of(),
+    Map.of(
+      "volume-up", new Action("device:Yamaha:VOL_UP"),
+      "loop", new Action("device:Yamaha:LOOP"),
+      "pause", new Action("delay:1:s")
+    )
+  );
+  private final ActionResolver resolver;
+
+  ActionResolverTest() {
+    Map<String, ActionHandler> handlers = new HashMap<>();
+
+    handlers.put("http", http);
+    handlers.put("device", new DeviceHandler(List.of(yamaha)));
+    handlers.put("irsend", new TemplateHandler(new Template("<protocol>:<bits>:<data>:<repeat>", "http://192.168.3.18/cm", "GET", null, Map.of("cmnd", "<protocol>,<data>"))));
+
+    this.resolver = new ActionResolver(handlers);
+  }
+
+  @Test
+  void shouldResolveCommandToTerminalAction() {
+    ResolutionPlan plan = resolver.resolve(new Action("cmd:volume-up"), activity, true);
+
+    assertThat(plan.problem()).isNull();
+    assertThat(plan.handler()).isEqualTo(http);
+    assertThat(plan.action().uri().toString()).isEqualTo("http://192.168.3.18/cm?cmnd=NEC%2C5EA158A7");
+    assertThat(plan.hops()).hasSize(4);
+  }
+
+  @Test
+  void shouldStopAtBuiltInActions() {
+    ResolutionPlan plan = resolver.resolve(new Action("cmd:pause"), activity, true);
+
+    assertThat(plan.problem()).isNull();
+    assertThat(plan.isTerminal()).isFalse();
+    assertThat(plan.action().uri().toString()).isEqualTo("delay:1:s");
+  }
+
+  @Test
+  void shouldDetectCycles() {
+    ResolutionPlan plan = resolver.resolve(new Action("cmd:loop"), activity, true);
+
+    assertThat(plan.problem()).startsWith("Cyclic chain for cmd:loop");
+    assertThat(plan.isTerminal()).isFalse();
+  }
+
+  @Test
+  void shouldResolveToNothingWithoutActivity() {
+    ResolutionPlan plan = resolver.resolve(new Action("cmd:volume-up"), null, true);
+
+    assertThat(plan.problem()).isNull();
+    assertThat(plan.action()).isNull();
+  }
+}
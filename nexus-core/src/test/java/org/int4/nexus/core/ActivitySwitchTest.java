@@ -0,0 +1,166 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.state.StateFile;
+import org.int4.nexus.core.trace.Trace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ActivitySwitchTest {
+  private final BlockingQueue<String> executed = new LinkedBlockingQueue<>();
+  private final Set<String> failing = ConcurrentHashMap.newKeySet();
+  private final TerminalActionHandler http = action -> {
+    String path = action.uri().getAuthority() + action.uri().getPath();
+
+    if(failing.remove(path)) {
+      throw new IllegalStateException("device did not respond: " + path);
+    }
+
+    executed.add(path);
+  };
+  private final Device projector = device("projector", List.of(), Map.of(), Map.of());
+  private final Device mediaSystem = device("mediasystem", List.of(), Map.of(), Map.of());
+  private final Device yamaha = device(
+    "yamaha",
+    List.of("mediasystem"),
+    Map.of("HDMI_1", new Action("http://yamaha/hdmi1"), "HDMI_2", new Action("http://yamaha/hdmi2")),
+    Map.of("input", List.of("HDMI_1", "HDMI_2"))
+  );
+  private final Configuration config = new Configuration(
+    Map.of(),
+    Map.of(),
+    List.of(projector, mediaSystem, yamaha),
+    Map.of(
+      URI.create("test:watch-movie"), new Action("activity:switch:watch-movie"),
+      URI.create("test:listen-music"), new Action("activity:switch:listen-music")
+    ),
+    List.of(
+      new Activity("watch-movie", "Watch Movie", List.of(yamaha, mediaSystem, projector), List.of(new Action("device:yamaha:HDMI_1")), Map.of()),
+      new Activity("listen-music", "Listen Music", List.of(yamaha), List.of(new Action("device:yamaha:HDMI_2")), Map.of())
+    ),
+    Map.of(),
+    List.of()
+  );
+  private final TestRuntime runtime = new TestRuntime();
+  private final ZoneRuntime zone = runtime.startZone(config, Map.of("http", http), null);
+  private final CommandProcessor commandProcessor = zone.commandProcessor();
+  private final InputHandler inputHandler = zone.inputHandler();
+
+  @AfterEach
+  void tearDown() {
+    runtime.close();
+  }
+
+  @Test
+  void shouldActivateDevicesConcurrentlyExceptWhenOrdered() throws InterruptedException {
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:watch-movie"), Trace.NONE));
+
+    List<String> order = await(6);
+
+    // The projector does not wait for anything, while the Yamaha waits for the media system:
+    assertThat(order.indexOf("projector/start")).isLessThan(order.indexOf("mediasystem/end"));
+    assertThat(order.indexOf("mediasystem/start")).isLessThan(order.indexOf("projector/end"));
+    assertThat(order.indexOf("yamaha/start")).isGreaterThan(order.indexOf("mediasystem/end"));
+  }
+
+  @Test
+  void shouldOnlySendActionsWhichChangeTheStateOfDevices() throws InterruptedException {
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:watch-movie"), Trace.NONE));
+
+    List<String> order = await(7);
+
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:watch-movie"), Trace.NONE));
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:listen-music"), Trace.NONE));
+
+    order.addAll(await(1));  // switches run one after another, so anything the second sent comes before the last action
+
+    assertThat(order.stream().filter(action -> action.equals("yamaha/start")).count()).isEqualTo(1L);
+    assertThat(order.stream().filter(action -> action.equals("yamaha/hdmi1")).count()).isEqualTo(1L);
+    assertThat(order.get(7)).isEqualTo("yamaha/hdmi2");
+  }
+
+  @Test
+  void shouldSendActionAgainWhenItFailedBefore() throws Exception {
+    failing.add("yamaha/hdmi1");
+
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:watch-movie"), Trace.NONE));
+
+    await(6);
+    awaitSwitch(zone);
+
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:watch-movie"), Trace.NONE));
+
+    assertThat(await(1)).containsExactly("yamaha/hdmi1");
+  }
+
+  @Test
+  void shouldSupersedeRunningSwitchAndOnlyRedoDevicesItDidNotComplete() throws InterruptedException {
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:watch-movie"), Trace.NONE));
+
+    assertThat(await(2)).contains("projector/start", "mediasystem/start");
+
+    // Both are waiting for their delay, while the Yamaha waits for the media system:
+    commandProcessor.execute(() -> inputHandler.process(URI.create("test:listen-music"), Trace.NONE));
+
+    assertThat(await(3)).containsExactly("yamaha/start", "yamaha/end", "yamaha/hdmi2");
+    assertThat(executed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void shouldContinueWithStateOfPreviousRun() throws Exception {
+    Path path = Files.createTempDirectory("state").resolve("nexus.state");
+
+    ZoneRuntime previousRun = runtime.startZone(config, Map.of("http", http), StateFile.open(path));
+
+    previousRun.commandProcessor().execute(() -> previousRun.inputHandler().process(URI.create("test:watch-movie"), Trace.NONE));
+
+    await(7);
+    awaitSwitch(previousRun);  // the activity is set once its setup completed
+
+    previousRun.close();  // also closes the state file
+
+    try(StateFile stateFile = StateFile.open(path)) {
+      assertThat(stateFile.read().activity()).isEqualTo("watch-movie");
+    }
+
+    ZoneRuntime run = runtime.startZone(config, Map.of("http", http), StateFile.open(path));
+
+    run.commandProcessor().execute(() -> run.inputHandler().process(URI.create("test:watch-movie"), Trace.NONE));
+    run.commandProcessor().execute(() -> run.inputHandler().process(URI.create("test:listen-music"), Trace.NONE));
+
+    assertThat(await(1)).containsExactly("yamaha/hdmi2");
+  }
+
+  private List<String> await(int count) throws InterruptedException {
+    return TestRuntime.await(executed, count);
+  }
+
+  private static void awaitSwitch(ZoneRuntime zone) throws Exception {
+    CompletableFuture.supplyAsync(zone.inputHandler()::latestActivitySwitch, zone.commandProcessor()).join().get(10, TimeUnit.SECONDS);
+  }
+
+  private static Device device(String id, List<String> after, Map<String, Action> mappings, Map<String, List<String>> states) {
+    List<Action> activation = List.of(
+      new Action("http://" + id + "/start"),
+      new Action("delay:200:ms"),
+      new Action("http://" + id + "/end")
+    );
+
+    return new Device(id, activation, List.of(), mappings, after, states);
+  }
+}
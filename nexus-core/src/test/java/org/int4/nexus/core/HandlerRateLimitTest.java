@@ -0,0 +1,87 @@
+package org.int4.nexus.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.handler.HttpProtocolHandler;
+import org.int4.nexus.core.handler.MqttProtocolHandler;
+import org.int4.nexus.core.handler.ShedPolicy;
+import org.int4.nexus.core.trace.Trace;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HandlerRateLimitTest {
+  private final BlockingQueue<String> sent = new LinkedBlockingQueue<>();
+  private final LaneExecutor laneExecutor = new LaneExecutor();
+
+  @Test
+  void shouldDropActionsWhichWouldWaitTooLongBehindQueuedBacklog() {
+    HttpProtocolHandler handler = new HttpProtocolHandler(new HttpProtocolHandler.Parameters("http-test", null, 0, 0, 0, 10, 1, 250, ShedPolicy.DROP)) {
+      @Override
+      public CompletableFuture<Void> submit(Action action) {
+        sent.add(action.uri().getPath());
+
+        return CompletableFuture.completedFuture(null);
+      }
+    };
+
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+    for(int i = 0; i < 10; i++) {
+      futures.add(submit(handler, new Action("http://bridge/" + i)));
+    }
+
+    // At 10 per second, only the first three fit within 250 ms, however long the backlog:
+    assertThat(futures.stream().filter(f -> !isRejected(f)).count()).isEqualTo(3L);
+    assertThat(futures.stream().filter(f -> isRejected(f)).count()).isEqualTo(7L);
+    assertThat(new ArrayList<>(sent)).containsExactly("/0", "/1", "/2");
+  }
+
+  @Test
+  void shouldNotHoldUpOtherTopicsOfSameBroker() throws InterruptedException {
+    MqttProtocolHandler handler = new MqttProtocolHandler(new MqttProtocolHandler.Parameters("mqtt-test", null, 0, null, 1, 1, 0, ShedPolicy.WAIT)) {
+      @Override
+      public CompletableFuture<Void> submit(Action action) {
+        sent.add(action.uri().getPath());
+
+        return CompletableFuture.completedFuture(null);
+      }
+    };
+
+    submit(handler, new Action("mqtt://broker/cmnd/bridge-a/IRSend"));
+    submit(handler, new Action("mqtt://broker/cmnd/bridge-a/IRSend"));  // waits a second for its token
+    submit(handler, new Action("mqtt://broker/cmnd/bridge-b/IRSend"));
+
+    List<String> order = new ArrayList<>();
+
+    for(int i = 0; i < 3; i++) {
+      order.add(sent.poll(10, TimeUnit.SECONDS));
+    }
+
+    assertThat(order).containsExactly("/cmnd/bridge-a/IRSend", "/cmnd/bridge-b/IRSend", "/cmnd/bridge-a/IRSend");
+  }
+
+  private CompletableFuture<Void> submit(TerminalActionHandler handler, Action action) {
+    return laneExecutor.submit(handler.target(action), Trace.NONE, () -> handler.admit(action), () -> handler.submit(action));
+  }
+
+  private static boolean isRejected(CompletableFuture<Void> future) {
+    try {
+      future.join();
+
+      return false;
+    }
+    catch(CompletionException e) {
+      return e.getCause() instanceof RejectedExecutionException;
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package org.int4.nexus.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.int4.nexus.core.IngressQueue.AdmissionPolicy;
+import org.int4.nexus.core.IngressQueue.Input;
+import org.int4.nexus.core.trace.Trace;
+import org.int4.nexus.core.util.Metrics;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class IngressQueueTest {
+  private final IngressQueue queue = new IngressQueue();
+  private final List<String> processed = new ArrayList<>();
+
+  @Test
+  void shouldDropOldestInputWhenFull() throws InterruptedException {
+    IngressQueue.Source source = queue.source("mouse-1", AdmissionPolicy.DROP_OLDEST, 2, 1);
+
+    assertThat(source.offer(input("a", false))).isTrue();
+    assertThat(source.offer(input("b", false))).isTrue();
+    assertThat(source.offer(input("c", false))).isTrue();
+
+    assertThat(takeAll(2)).containsExactly("b", "c");
+  }
+
+  @Test
+  void shouldDropNewestInputWhenFull() throws InterruptedException {
+    IngressQueue.Source source = queue.source("mouse-2", AdmissionPolicy.DROP_NEWEST, 2, 1);
+
+    assertThat(source.offer(input("a", false))).isTrue();
+    assertThat(source.offer(input("b", false))).isTrue();
+    assertThat(source.offer(input("c", false))).isFalse();
+
+    assertThat(takeAll(2)).containsExactly("a", "b");
+  }
+
+  @Test
+  void shouldCoalesceInputsWhichAreStillWaiting() throws InterruptedException {
+    IngressQueue.Source source = queue.source("remote-1", AdmissionPolicy.COALESCE, 4, 1);
+
+    assertThat(source.offer(input("a", false))).isTrue();
+    assertThat(source.offer(input("b", false))).isTrue();
+    assertThat(source.offer(input("a", false))).isFalse();
+
+    assertThat(takeAll(2)).containsExactly("a", "b");
+  }
+
+  @Test
+  void shouldNeverDropEssentialInputs() throws InterruptedException {
+    IngressQueue.Source source = queue.source("remote-2", AdmissionPolicy.DROP_OLDEST, 2, 1);
+
+    assertThat(source.offer(input("released-1", true))).isTrue();
+    assertThat(source.offer(input("a", false))).isTrue();
+    assertThat(source.offer(input("b", false))).isTrue();  // evicts a, not the release
+    assertThat(source.offer(input("released-2", true))).isTrue();  // admitted over capacity
+
+    assertThat(takeAll(3)).containsExactly("released-1", "b", "released-2");
+  }
+
+  @Test
+  void shouldNotCoalesceReleaseWithEarlierRelease() throws InterruptedException {
+    IngressQueue.Source source = queue.source("remote-7", AdmissionPolicy.COALESCE, 4, 1);
+
+    assertThat(source.offer(input("pressed", false))).isTrue();
+    assertThat(takeAll(1)).containsExactly("pressed");
+
+    assertThat(source.offer(input("released", true))).isTrue();
+    assertThat(source.offer(input("pressed", false))).isTrue();
+    assertThat(source.offer(input("released", true))).isTrue();
+
+    assertThat(takeAll(3)).containsExactly("pressed", "released", "pressed", "released");
+  }
+
+  @Test
+  void shouldTakeInputsFromSourcesInTurnByWeight() throws InterruptedException {
+    IngressQueue.Source mouse = queue.source("mouse-3", AdmissionPolicy.DROP_OLDEST, 8, 1);
+    IngressQueue.Source remote = queue.source("remote-3", AdmissionPolicy.DROP_OLDEST, 8, 2);
+
+    for(int i = 1; i <= 4; i++) {
+      mouse.offer(input("m" + i, false));
+      remote.offer(input("r" + i, false));
+    }
+
+    assertThat(takeAll(8)).containsExactly("m1", "r1", "r2", "m2", "r3", "r4", "m3", "m4");
+  }
+
+  @Test
+  void shouldTakeContinuationsBeforeInputs() throws InterruptedException {
+    IngressQueue.Source source = queue.source("remote-4", AdmissionPolicy.DROP_OLDEST, 8, 1);
+
+    source.offer(input("a", false));
+    queue.addContinuation(() -> processed.add("continuation"));
+
+    assertThat(takeAll(2)).containsExactly("continuation", "a");
+  }
+
+  @Test
+  void shouldRemoveSourceOnceWaitingInputsWereTaken() throws InterruptedException {
+    IngressQueue.Source mouse = queue.source("mouse-5", AdmissionPolicy.DROP_OLDEST, 8, 1);
+    IngressQueue.Source remote = queue.source("remote-5", AdmissionPolicy.DROP_OLDEST, 8, 1);
+
+    mouse.offer(input("m1", false));
+    mouse.offer(input("m2", false));
+    remote.offer(input("r1", false));
+    remote.offer(input("r2", false));
+
+    queue.removeSource("mouse-5");
+
+    assertThat(Metrics.snapshot()).containsKey("ingress.mouse-5.depth");
+    assertThat(takeAll(4)).containsExactly("m1", "r1", "m2", "r2");
+
+    remote.offer(input("r3", false));
+
+    assertThat(takeAll(1)).containsExactly("m1", "r1", "m2", "r2", "r3");
+    assertThat(Metrics.snapshot()).doesNotContainKey("ingress.mouse-5.depth");
+    assertThat(Metrics.snapshot()).containsKey("ingress.remote-5.depth");
+  }
+
+  @Test
+  void shouldKeepSourceWhichWasCreatedAgainBeforeItWasEmpty() throws InterruptedException {
+    IngressQueue.Source source = queue.source("remote-6", AdmissionPolicy.DROP_OLDEST, 8, 1);
+
+    source.offer(input("a", false));
+    queue.removeSource("remote-6");
+
+    assertThat(queue.source("remote-6", AdmissionPolicy.DROP_OLDEST, 8, 1)).isEqualTo(source);
+
+    source.offer(input("b", false));
+
+    assertThat(takeAll(2)).containsExactly("a", "b");
+    assertThat(Metrics.snapshot()).containsKey("ingress.remote-6.depth");
+  }
+
+  private Input input(String name, boolean essential) {
+    return new Input(Trace.NONE, name, essential, () -> processed.add(name), () -> name);
+  }
+
+  private List<String> takeAll(int count) throws InterruptedException {
+    for(int i = 0; i < count; i++) {
+      queue.take().run();
+    }
+
+    return processed;
+  }
+}
@@ -0,0 +1,80 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.trace.Trace;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputHandlerTest {
+  private final BlockingQueue<String> executed = new LinkedBlockingQueue<>();
+  private final CountDownLatch busy = new CountDownLatch(1);
+  private final TerminalActionHandler http = action -> {
+    try {
+      busy.await();  // a slow target
+    }
+    catch(InterruptedException e) {
+      throw new IllegalStateException(e);
+    }
+
+    executed.add(action.uri().getAuthority() + action.uri().getPath());
+  };
+  private final Configuration config = new Configuration(
+    Map.of(),
+    Map.of(),
+    List.of(),
+    Map.of(
+      URI.create("test:rc1:VOLUMEUP:pressed"), new Action("http://amp/volume-up"),
+      URI.create("test:rc1:VOLUMEUP:held"), new Action("http://amp/volume-up")
+    ),
+    List.of(),
+    Map.of(),
+    List.of()
+  );
+  private final TestRuntime runtime = new TestRuntime();
+  private final ZoneRuntime zone = runtime.startZone(config, Map.of("http", http), null);
+
+  @AfterEach
+  void tearDown() {
+    runtime.close();
+  }
+
+  @Test
+  void shouldCollapseRepeatsOfHeldKeyWaitingForSlowTarget() throws InterruptedException {
+    process("test:rc1:VOLUMEUP:pressed");  // occupies the lane
+    process("test:rc1:VOLUMEUP:held");
+    process("test:rc1:VOLUMEUP:held");
+    process("test:rc1:VOLUMEUP:held");
+
+    busy.countDown();
+
+    assertThat(TestRuntime.await(executed, 2)).containsExactly("amp/volume-up", "amp/volume-up");
+    assertThat(executed.poll(500, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void shouldSendEachPressOfKey() throws InterruptedException {
+    process("test:rc1:VOLUMEUP:pressed");
+    process("test:rc1:VOLUMEUP:pressed");
+    process("test:rc1:VOLUMEUP:pressed");
+
+    busy.countDown();
+
+    assertThat(TestRuntime.await(executed, 3)).hasSize(3);
+  }
+
+  private void process(String input) {
+    CompletableFuture.runAsync(() -> zone.inputHandler().process(URI.create(input), Trace.NONE), zone.commandProcessor()).join();
+  }
+}
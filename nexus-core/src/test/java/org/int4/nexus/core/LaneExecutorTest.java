@@ -0,0 +1,98 @@
+package org.int4.nexus.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.trace.Trace;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LaneExecutorTest {
+  private final LaneExecutor laneExecutor = new LaneExecutor();
+  private final BlockingQueue<String> executed = new LinkedBlockingQueue<>();
+  private final CountDownLatch busy = new CountDownLatch(1);
+
+  @Test
+  void shouldCoalesceIdenticalTasksWaitingInLane() throws Exception {
+    occupyLane();
+
+    CompletableFuture<Void> first = submitCoalescable("VOL_UP");
+    CompletableFuture<Void> second = submitCoalescable("VOL_UP");
+    CompletableFuture<Void> third = submitCoalescable("VOL_UP");
+    CompletableFuture<Void> other = submitCoalescable("VOL_DOWN");
+
+    busy.countDown();
+
+    CompletableFuture.allOf(first, second, third, other).get(10, TimeUnit.SECONDS);
+
+    assertThat(drain()).containsExactly("busy", "VOL_UP x3", "VOL_DOWN x1");
+    assertThat(first).isEqualTo(third);
+  }
+
+  @Test
+  void shouldNotCoalesceTasksWhichAreNotCoalescable() throws Exception {
+    occupyLane();
+
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+    for(int i = 0; i < 3; i++) {
+      futures.add(laneExecutor.submit("lane", Trace.NONE, () -> 0, () -> execute("VOL_UP x1")));
+    }
+
+    busy.countDown();
+
+    CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get(10, TimeUnit.SECONDS);
+
+    assertThat(drain()).containsExactly("busy", "VOL_UP x1", "VOL_UP x1", "VOL_UP x1");
+  }
+
+  @Test
+  void shouldNotCoalesceWithTaskWhichAlreadyStarted() throws Exception {
+    CompletableFuture<Void> first = submitCoalescable("VOL_UP");
+
+    first.get(10, TimeUnit.SECONDS);
+
+    CompletableFuture<Void> second = submitCoalescable("VOL_UP");
+
+    second.get(10, TimeUnit.SECONDS);
+
+    assertThat(drain()).containsExactly("VOL_UP x1", "VOL_UP x1");
+  }
+
+  private void occupyLane() {
+    laneExecutor.submit("lane", Trace.NONE, () -> 0, () -> {
+      try {
+        busy.await();
+      }
+      catch(InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+
+      return execute("busy");
+    });
+  }
+
+  private CompletableFuture<Void> submitCoalescable(String key) {
+    return laneExecutor.submitCoalescable("lane", key, Trace.NONE, () -> 0, count -> execute(key + " x" + count));
+  }
+
+  private CompletableFuture<Void> execute(String description) {
+    executed.add(description);
+
+    return CompletableFuture.completedFuture(null);
+  }
+
+  private List<String> drain() {
+    List<String> list = new ArrayList<>();
+
+    executed.drainTo(list);
+
+    return list;
+  }
+}
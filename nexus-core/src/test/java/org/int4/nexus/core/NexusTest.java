@@ -0,0 +1,260 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.Connection;
+import org.int4.nexus.core.api.Connector;
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.int4.nexus.core.util.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class NexusTest {
+  private static final Map<String, InputSink> SINKS = new ConcurrentHashMap<>();
+  private static final BlockingQueue<String> EXECUTED = new LinkedBlockingQueue<>();
+  private static final BlockingQueue<String> CLOSED = new LinkedBlockingQueue<>();
+
+  private static volatile boolean handlersFail;
+
+  private final Device projector = device("projector");
+  private final Device lamp = device("lamp");
+  private final Configuration config = new Configuration(
+    Map.of(TestConnector.class.getName(), List.of(Map.of("id", "living-room-remote"), Map.of("id", "bedroom-remote"))),
+    Map.of(TestHandler.class.getName(), List.of(Map.of("id", "http"))),
+    List.of(projector, lamp),
+    Map.of(
+      URI.create("test:living-room-remote:watch-tv"), new Action("activity:switch:watch-tv"),
+      URI.create("test:bedroom-remote:read"), new Action("activity:switch:read"),
+      URI.create("test:bedroom-remote:off"), new Action("activity:off")
+    ),
+    List.of(
+      new Activity("watch-tv", "Watch TV", List.of(projector), List.of(), Map.of()),
+      new Activity("read", "Read", List.of(lamp), List.of(), Map.of())
+    ),
+    Map.of(),
+    List.of(
+      new Zone("living-room", List.of("living-room-remote"), List.of("projector"), List.of("watch-tv")),
+      new Zone("bedroom", List.of("bedroom-remote"), List.of("lamp"), List.of("read"))
+    )
+  );
+
+  private final TestRuntime runtime = new TestRuntime();
+  private final Nexus nexus = runtime.createNexus();
+
+  @AfterEach
+  void tearDown() {
+    runtime.close();
+    EXECUTED.clear();
+    CLOSED.clear();
+    handlersFail = false;
+  }
+
+  @Test
+  void shouldKeepActivityStateOfEachZoneSeparate() throws InterruptedException {
+    nexus.apply(config);
+
+    SINKS.get("living-room-remote").accept(URI.create("test:living-room-remote:watch-tv"));
+    assertThat(await(1)).containsExactly("projector/on");
+
+    SINKS.get("bedroom-remote").accept(URI.create("test:bedroom-remote:read"));
+    assertThat(await(1)).containsExactly("lamp/on");
+
+    // Switching off the bedroom leaves the projector in the living room on:
+    SINKS.get("bedroom-remote").accept(URI.create("test:bedroom-remote:off"));
+    assertThat(await(1)).containsExactly("lamp/off");
+    assertThat(EXECUTED.poll(500, TimeUnit.MILLISECONDS)).isNull();
+
+    // The living room remote does not reach the bedroom:
+    SINKS.get("living-room-remote").accept(URI.create("test:bedroom-remote:read"));
+    assertThat(EXECUTED.poll(500, TimeUnit.MILLISECONDS)).isNull();
+  }
+
+  @Test
+  void shouldKeepRunningConfigurationWhenNewConfigurationFailsToApply() throws InterruptedException {
+    nexus.apply(config);
+
+    Map<String, List<Map<String, Object>>> connectors = new HashMap<>(config.connectors());
+    Map<URI, Action> inputMappings = new HashMap<>(config.inputMappings());
+
+    connectors.put(FailingConnector.class.getName(), List.of(Map.of("id", "failing")));
+    inputMappings.put(URI.create("failing:button"), new Action("activity:off"));
+
+    Configuration failingConfig = new Configuration(
+      connectors,
+      Map.of(TestHandler.class.getName(), List.of(Map.of("id", "http"), Map.of("id", "other"))),
+      config.devices(),
+      inputMappings,
+      config.activities(),
+      config.templates(),
+      config.zones()
+    );
+
+    assertThatThrownBy(() -> nexus.apply(failingConfig)).hasMessageContaining("cannot encode");
+
+    // Only the handler created for the new configuration was closed:
+    assertThat(CLOSED).containsExactly("other");
+
+    SINKS.get("living-room-remote").accept(URI.create("test:living-room-remote:watch-tv"));
+    assertThat(await(1)).containsExactly("projector/on");
+  }
+
+  @Test
+  void shouldRemoveSourceOfConnectorWhichWasDisconnected() {
+    nexus.apply(config);
+
+    assertThat(Metrics.snapshot()).containsKey("ingress.bedroom-remote.depth");
+
+    nexus.apply(new Configuration(
+      Map.of(TestConnector.class.getName(), List.of(Map.of("id", "living-room-remote"))),
+      config.handlers(),
+      config.devices(),
+      config.inputMappings(),
+      config.activities(),
+      config.templates(),
+      List.of(
+        new Zone("living-room", List.of("living-room-remote"), List.of("projector"), List.of("watch-tv")),
+        new Zone("bedroom", List.of(), List.of("lamp"), List.of("read"))
+      )
+    ));
+
+    assertThat(Metrics.snapshot()).doesNotContainKey("ingress.bedroom-remote.depth");
+    assertThat(Metrics.snapshot()).containsKey("ingress.living-room-remote.depth");
+  }
+
+  @Test
+  void shouldRejectConnectorWhichIsPartOfTwoZones() throws InterruptedException {
+    nexus.apply(config);
+
+    Configuration overlappingConfig = new Configuration(
+      config.connectors(),
+      Map.of(TestHandler.class.getName(), List.of(Map.of("id", "http"), Map.of("id", "other"))),
+      config.devices(),
+      config.inputMappings(),
+      config.activities(),
+      config.templates(),
+      List.of(
+        new Zone("living-room", List.of("living-room-remote"), List.of("projector"), List.of("watch-tv")),
+        new Zone("bedroom", List.of("bedroom-remote", "living-room-remote"), List.of("lamp"), List.of("read"))
+      )
+    );
+
+    assertThatThrownBy(() -> nexus.apply(overlappingConfig)).hasMessageContaining("Connector living-room-remote is part of zones living-room and bedroom");
+
+    // Rejected before any handler was created:
+    assertThat(CLOSED).hasSize(0);
+
+    SINKS.get("living-room-remote").accept(URI.create("test:living-room-remote:watch-tv"));
+    assertThat(await(1)).containsExactly("projector/on");
+  }
+
+  @Test
+  void shouldKeepRunningHandlerAndRetryWhenChangedHandlerCannotBeCreated() throws InterruptedException {
+    nexus.apply(config);
+
+    Configuration changedConfig = new Configuration(
+      config.connectors(),
+      Map.of(TestHandler.class.getName(), List.of(Map.of("id", "http", "version", "2"))),
+      config.devices(),
+      config.inputMappings(),
+      config.activities(),
+      config.templates(),
+      config.zones()
+    );
+
+    handlersFail = true;
+    nexus.apply(changedConfig);
+
+    assertThat(CLOSED).hasSize(0);
+
+    SINKS.get("living-room-remote").accept(URI.create("test:living-room-remote:watch-tv"));
+    assertThat(await(1)).containsExactly("projector/on");
+
+    // The same configuration is applied again once the handler can be created:
+    handlersFail = false;
+    nexus.apply(changedConfig);
+
+    assertThat(CLOSED).containsExactly("http");
+  }
+
+  private static List<String> await(int count) throws InterruptedException {
+    return TestRuntime.await(EXECUTED, count);
+  }
+
+  private static Device device(String id) {
+    return new Device(id, List.of(new Action("http://" + id + "/on")), List.of(new Action("http://" + id + "/off")), Map.of(), List.of(), Map.of());
+  }
+
+  public static class TestConnector implements Connector {
+    @Override
+    public Connection connect(InputSink sink, Map<String, Object> parameters) {
+      SINKS.put((String)parameters.get("id"), sink);
+
+      return () -> {};
+    }
+  }
+
+  public static class FailingConnector implements Connector {
+    @Override
+    public Connection connect(InputSink sink, Map<String, Object> parameters) {
+      return () -> {};
+    }
+
+    @Override
+    public Optional<InputCodec> codec() {
+      return Optional.of(new InputCodec() {
+        @Override
+        public String scheme() {
+          return "failing";
+        }
+
+        @Override
+        public long[] encode(URI input) {
+          throw new IllegalArgumentException("cannot encode: " + input);
+        }
+
+        @Override
+        public URI decode(long key) {
+          throw new IllegalArgumentException("cannot decode: " + key);
+        }
+      });
+    }
+  }
+
+  public static class TestHandler implements TerminalActionHandler {
+    private final String id;
+
+    public TestHandler(Parameters parameters) {
+      if(handlersFail) {
+        throw new IllegalStateException("unable to create handler " + parameters.id());
+      }
+
+      this.id = parameters.id();
+    }
+
+    public record Parameters(String id, String version) {}
+
+    @Override
+    public void accept(Action action) {
+      EXECUTED.add(action.uri().getAuthority() + action.uri().getPath());
+    }
+
+    @Override
+    public void close() {
+      CLOSED.add(id);
+    }
+  }
+}
@@ -0,0 +1,64 @@
+package org.int4.nexus.core;
+
+import java.util.Map;
+import java.util.Optional;
+
+import org.int4.nexus.core.api.Action;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TemplateHandlerTest {
+  private final TemplateHandler irsend = new TemplateHandler(new Template(
+    "<protocol>:<bits>:<data>:<repeat>",
+    "http://192.168.3.18/cm",
+    "GET",
+    null,
+    Map.of("cmnd", "IRSend {\"Protocol\":\"<protocol>\",\"Bits\":<bits>,\"Data\":\"0x<data>\",\"Repeat\":<repeat>}")
+  ));
+
+  @Test
+  void shouldExpandQueryTemplate() {
+    Action action = irsend.handle(new Action("irsend:NEC:32:5EA158A7:0")).orElseThrow();
+
+    assertThat(action.uri().toString()).isEqualTo("http://192.168.3.18/cm?cmnd=IRSend+%7B%22Protocol%22%3A%22NEC%22%2C%22Bits%22%3A32%2C%22Data%22%3A%220x5EA158A7%22%2C%22Repeat%22%3A0%7D");
+    assertThat(action.method()).isEqualTo("GET");
+    assertThat(action.payload()).isNull();
+  }
+
+  @Test
+  void shouldExpandActionAndPayload() {
+    TemplateHandler handler = new TemplateHandler(new Template("<host>:<key>", "http://<host>:8040/keys/<key>", "POST", "{\"key\":\"<key>\",\"<other>\":1}", null));
+
+    Action action = handler.handle(new Action("mediasystem:media:ENTER")).orElseThrow();
+
+    assertThat(action.uri().toString()).isEqualTo("http://media:8040/keys/ENTER");
+    assertThat(action.method()).isEqualTo("POST");
+    assertThat(action.payload()).isEqualTo("{\"key\":\"ENTER\",\"<other>\":1}");
+  }
+
+  @Test
+  void shouldEncodeParametersInQueries() {
+    TemplateHandler handler = new TemplateHandler(new Template("<text>", "http://host/say", "GET", null, Map.of("q", "<text> & <text>")));
+
+    Action action = handler.handle(new Action("say:a+b%3Fc")).orElseThrow();
+
+    assertThat(action.uri().toString()).isEqualTo("http://host/say?q=a%2Bb%3Fc+%26+a%2Bb%3Fc");
+  }
+
+  @Test
+  void shouldReuseExpansionsOfSameInput() {
+    Optional<Action> first = irsend.handle(new Action("irsend:NEC:32:5EA158A7:0"));
+
+    assertThat(irsend.handle(new Action("irsend:NEC:32:5EA158A7:0"))).isSameAs(first);
+    assertThat(irsend.handle(new Action("irsend:NEC:32:5EA158A8:0"))).isNotEqualTo(first);
+  }
+
+  @Test
+  void shouldRejectActionsNotMatchingTemplate() {
+    assertThatThrownBy(() -> irsend.handle(new Action("irsend:NEC:32")))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessageContaining("irsend:NEC:32");
+  }
+}
@@ -0,0 +1,75 @@
+package org.int4.nexus.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.ActionHandler;
+import org.int4.nexus.core.state.StateFile;
+
+class TestRuntime implements AutoCloseable {
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+  private final LaneExecutor laneExecutor = new LaneExecutor();
+  private final DelayScheduler delayScheduler = new DelayScheduler(scheduler);
+  private final List<ZoneRuntime> zones = new ArrayList<>();  // guarded by itself
+
+  ZoneRuntime startZone(String id, StateFile stateFile) {
+    ZoneRuntime zone = new ZoneRuntime(id, laneExecutor, delayScheduler, stateFile);
+
+    synchronized(zones) {
+      zones.add(zone);
+    }
+
+    return zone;
+  }
+
+  ZoneRuntime startZone(Configuration config, Map<String, ActionHandler> handlers, StateFile stateFile) {
+    ZoneRuntime zone = startZone(Zone.DEFAULT_ID, stateFile);
+    Map<String, ActionHandler> allHandlers = new HashMap<>(handlers);
+
+    allHandlers.put("device", new DeviceHandler(config.devices()));
+
+    CompletableFuture.runAsync(() -> zone.inputHandler().reconfigure(config, allHandlers, Map.of()), zone.commandProcessor()).join();
+
+    return zone;
+  }
+
+  Nexus createNexus() {
+    return new Nexus(new ObjectMapper(), id -> startZone(id, null), null);
+  }
+
+  static <T> List<T> await(BlockingQueue<T> queue, int count) throws InterruptedException {
+    List<T> elements = new ArrayList<>();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while(elements.size() < count) {
+      T element = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+
+      if(element == null) {
+        throw new AssertionError("Only received " + elements);
+      }
+
+      elements.add(element);
+    }
+
+    return elements;
+  }
+
+  @Override
+  public void close() {
+    synchronized(zones) {
+      zones.forEach(ZoneRuntime::close);
+      zones.clear();
+    }
+
+    scheduler.shutdownNow();
+  }
+}
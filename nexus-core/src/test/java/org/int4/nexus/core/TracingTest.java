@@ -0,0 +1,94 @@
+package org.int4.nexus.core;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.int4.nexus.core.api.Action;
+import org.int4.nexus.core.api.TerminalActionHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TracingTest {
+  private final TerminalActionHandler http = action -> {};
+  private final Device yamaha = new Device(
+    "Yamaha",
+    List.of(),
+    List.of(),
+    Map.of("VOL_UP", new Action("http://192.168.3.18/cm?cmnd=VOL_UP")),
+    List.of(),
+    Map.of()
+  );
+  private final Configuration config = new Configuration(
+    Map.of(),
+    Map.of(),
+    List.of(yamaha),
+    Map.of(URI.create("test:volume-up"), new Action("device:Yamaha:VOL_UP")),
+    List.of(),
+    Map.of(),
+    List.of()
+  );
+  private final TestRuntime runtime = new TestRuntime();
+  private final ZoneRuntime zone = runtime.startZone(config, Map.of("http", http), null);
+  private final CommandSink sink = new CommandSink(zone.commandProcessor().source("test", IngressQueue.AdmissionPolicy.DROP_OLDEST, 8, 1), zone.inputHandler());
+  private final BlockingQueue<RecordedEvent> events = new LinkedBlockingQueue<>();
+
+  @AfterEach
+  void tearDown() {
+    runtime.close();
+  }
+
+  @Test
+  void shouldRecordEachStageOfAnInputWithItsTraceId() throws InterruptedException {
+    Map<String, RecordedEvent> recorded;
+
+    try(RecordingStream stream = new RecordingStream()) {
+      stream.enable("org.int4.nexus.InputEnqueued");
+      stream.enable("org.int4.nexus.InputDequeued");
+      stream.enable("org.int4.nexus.ResolutionHop");
+      stream.enable("org.int4.nexus.Handler");
+      stream.onEvent(events::add);
+      stream.startAsync();
+
+      sink.accept(URI.create("test:volume-up"));
+
+      recorded = await(4);
+    }
+
+    RecordedEvent enqueued = recorded.get("org.int4.nexus.InputEnqueued");
+    RecordedEvent dequeued = recorded.get("org.int4.nexus.InputDequeued");
+    RecordedEvent hop = recorded.get("org.int4.nexus.ResolutionHop");
+    RecordedEvent handler = recorded.get("org.int4.nexus.Handler");
+    long traceId = enqueued.getLong("traceId");
+
+    assertThat(traceId).isNotEqualTo(0L);
+    assertThat(enqueued.getString("input")).isEqualTo("test:volume-up");
+    assertThat(dequeued.getLong("traceId")).isEqualTo(traceId);
+    assertThat(hop.getLong("traceId")).isEqualTo(traceId);
+    assertThat(hop.getString("hop")).isEqualTo("-> device:Yamaha:VOL_UP");
+    assertThat(handler.getLong("traceId")).isEqualTo(traceId);
+    assertThat(handler.getString("target")).isEqualTo("http://192.168.3.18");
+    assertThat(handler.getBoolean("failed")).isFalse();
+  }
+
+  // Events of different threads may arrive in any order, so collect them by name:
+  private Map<String, RecordedEvent> await(int count) throws InterruptedException {
+    Map<String, RecordedEvent> recorded = new HashMap<>();
+
+    while(recorded.size() < count) {
+      RecordedEvent event = TestRuntime.await(events, 1).get(0);
+
+      recorded.putIfAbsent(event.getEventType().getName(), event);
+    }
+
+    return recorded;
+  }
+}
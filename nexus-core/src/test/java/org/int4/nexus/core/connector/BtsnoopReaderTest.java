@@ -0,0 +1,105 @@
+package org.int4.nexus.core.connector;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class BtsnoopReaderTest {
+
+  @Test
+  void shouldReturnReceivedPacketsOnly() throws IOException {
+    ByteBuffer stream = header(1002);
+
+    record(stream, 1, 100, 0x02, 0x01, 0x2E);
+    record(stream, 0, 200, 0x01, 0x03, 0x0C);  // sent command
+    record(stream, 1, 300, 0x04, 0x0E);
+
+    BtsnoopReader reader = reader(stream, 64);
+
+    assertThat(bytes(reader.next())).isEqualTo("02012e");
+    assertThat(reader.timestampMicros()).isEqualTo(100L);
+    assertThat(bytes(reader.next())).isEqualTo("040e");
+    assertThat(reader.timestampMicros()).isEqualTo(300L);
+    assertThat(reader.next()).isNull();
+  }
+
+  @Test
+  void shouldAddPacketTypeForUnencapsulatedStreams() throws IOException {
+    ByteBuffer stream = header(1001);
+
+    record(stream, 1, 100, 0x01, 0x2E);  // received data
+    record(stream, 3, 200, 0x0E, 0x04);  // received event
+
+    BtsnoopReader reader = reader(stream, 64);
+
+    assertThat(bytes(reader.next())).isEqualTo("02012e");
+    assertThat(bytes(reader.next())).isEqualTo("040e04");
+    assertThat(reader.next()).isNull();
+  }
+
+  @Test
+  void shouldReadRecordsLargerThanRemainingBuffer() throws IOException {
+    ByteBuffer stream = header(1002);
+
+    for(int i = 0; i < 10; i++) {
+      record(stream, 1, i, 0x02, i, i, i, i, i, i, i, i, i);
+    }
+
+    BtsnoopReader reader = reader(stream, 48);  // forces compacting for most records
+
+    for(int i = 0; i < 10; i++) {
+      assertThat(bytes(reader.next())).isEqualTo("02" + "%02x".formatted(i).repeat(9));
+    }
+
+    assertThat(reader.next()).isNull();
+  }
+
+  @Test
+  void shouldRejectOtherFormats() {
+    BtsnoopReader reader = new BtsnoopReader(Channels.newChannel(new ByteArrayInputStream("> 02 01 2E 0B 00 07 00\n".getBytes(StandardCharsets.US_ASCII))), 64);
+
+    assertThatThrownBy(reader::next).isInstanceOf(IOException.class);
+  }
+
+  private static ByteBuffer header(int datalink) {
+    return ByteBuffer.allocate(1024).put("btsnoop\0".getBytes(StandardCharsets.US_ASCII)).putInt(1).putInt(datalink);
+  }
+
+  private static void record(ByteBuffer stream, int flags, long timestamp, int... data) {
+    stream.putInt(data.length).putInt(data.length).putInt(flags).putInt(0).putLong(timestamp);
+
+    for(int b : data) {
+      stream.put((byte)b);
+    }
+  }
+
+  // Returns at most 7 bytes per read, to split records across reads:
+  private static BtsnoopReader reader(ByteBuffer stream, int bufferSize) {
+    InputStream input = new ByteArrayInputStream(stream.array(), 0, stream.position()) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 7));
+      }
+    };
+
+    return new BtsnoopReader(Channels.newChannel(input), bufferSize);
+  }
+
+  private static String bytes(ByteBuffer packet) {
+    StringBuilder builder = new StringBuilder();
+
+    while(packet.hasRemaining()) {
+      builder.append("%02x".formatted(packet.get()));
+    }
+
+    return builder.toString();
+  }
+}
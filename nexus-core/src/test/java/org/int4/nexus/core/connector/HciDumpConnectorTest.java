@@ -0,0 +1,76 @@
+package org.int4.nexus.core.connector;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HciDumpConnectorTest {
+  private static final InputCodec CODEC = HciDumpConnector.CODEC;
+
+  @Test
+  void shouldEncodeAndDecodeInputs() {
+    for(String input : new String[] {
+      "hci:001f:41000000:pressed",
+      "hci:0023:00001e0000000000:short-pressed",
+      "hci:ffff:0102030405:long-pressed",
+      "hci:001f::held"
+    }) {
+      URI uri = URI.create(input);
+      long[] keys = CODEC.encode(uri);
+
+      assertThat(keys).hasSize(1);
+      assertThat(CODEC.decode(keys[0])).isEqualTo(uri);
+    }
+  }
+
+  @Test
+  void shouldNotEncodeInputsWhichDoNotFitInKey() {
+    assertThat(CODEC.encode(URI.create("hci:0023:000000000001:pressed"))).hasSize(0);  // non-zero byte after the first five
+    assertThat(CODEC.encode(URI.create("hci:0023:00000000000000000000000000000000:pressed"))).hasSize(0);  // too long
+    assertThat(CODEC.encode(URI.create("hci:001f:41000000:released"))).hasSize(0);  // never occurs
+    assertThat(CODEC.encode(URI.create("hci:001F:41000000:pressed"))).hasSize(0);  // always lower case
+    assertThat(CODEC.encode(URI.create("other:001f:41000000:pressed"))).hasSize(0);
+  }
+
+  @Test
+  void shouldNotShareKeysWithInputDeviceConnector() {
+    long key = CODEC.encode(URI.create("hci:0000::pressed"))[0];
+    long inputDeviceKey = InputDeviceConnector.CODEC.encode(URI.create("input-device:rc1:0000:0000:00000000"))[0];
+
+    assertThat(key & InputCodec.TAG_MASK).isNotEqualTo(0L);
+    assertThat(inputDeviceKey & InputCodec.TAG_MASK).isNotEqualTo(0L);
+    assertThat(key & InputCodec.TAG_MASK).isNotEqualTo(inputDeviceKey & InputCodec.TAG_MASK);
+  }
+
+  @Test
+  void shouldProduceSameInputsAsUris() throws IOException {
+    StringBuilder received = new StringBuilder();
+    HciDumpConnector.EventHandler handler = new HciDumpConnector.EventHandler(new InputSink() {
+      @Override
+      public void accept(URI uri) {
+        received.append(uri).append(" ");
+      }
+    }, KeyTimer.SHARED);
+
+    handler.readText(new ByteArrayInputStream("""
+      > 02 01 2E 0B 00 07 00 04 00 1B 1F 00 41 00 00 00
+      > 02 01 2E 0B 00 07 00 04 00 1B 1F 00 00 00 00 00
+      > 02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 1E 00 00 00 00 00
+      > 02 01 2E 0F 00 0B 00 04 00 1B 23 00 00 00 00 00 00 00 00 00
+      """.getBytes(StandardCharsets.US_ASCII)));
+
+    assertThat(received.toString().trim()).isEqualTo(
+      "hci:001f:41000000:pressed "
+        + "hci:001f:41000000:short-pressed "
+        + "hci:0023:00001e0000000000:pressed "
+        + "hci:0023:00001e0000000000:short-pressed"
+    );
+  }
+}
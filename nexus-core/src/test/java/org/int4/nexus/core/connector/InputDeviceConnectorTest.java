@@ -0,0 +1,122 @@
+package org.int4.nexus.core.connector;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.Map;
+
+import org.int4.nexus.core.api.InputCodec;
+import org.int4.nexus.core.api.InputSink;
+import org.int4.nexus.core.util.LongTable;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputDeviceConnectorTest {
+  private static final InputCodec CODEC = InputDeviceConnector.CODEC;
+
+  @Test
+  void shouldEncodeAndDecodeInputs() {
+    for(String input : new String[] {
+      "input-device:rc1:KEY:VOLUMEUP:pressed",
+      "input-device:rc1:KEY:VOLUMEUP:long-pressed:control+shift",
+      "input-device:rc1:KEY:0:short-pressed",
+      "input-device:rc2:KEY:02ff:held",
+      "input-device:rc2:0002:0001:fffffffe"
+    }) {
+      URI uri = URI.create(input);
+      long[] keys = CODEC.encode(uri);
+
+      assertThat(keys).isNotEmpty();
+
+      for(long key : keys) {
+        assertThat(CODEC.decode(key)).isEqualTo(uri);
+      }
+    }
+  }
+
+  @Test
+  void shouldEncodeAmbiguousNameAsAllMatchingKeys() {
+    assertThat(CODEC.encode(URI.create("input-device:rc1:KEY:0:pressed"))).hasSize(2);  // KEY_0 and BTN_0
+  }
+
+  @Test
+  void shouldNotEncodeInputsWhichCanNeverOccur() {
+    assertThat(CODEC.encode(URI.create("input-device:rc1:KEY:VOLUMEUP:tapped"))).isEmpty();
+    assertThat(CODEC.encode(URI.create("input-device:rc1:KEY:VOLUMEUP:pressed:shift+control"))).isEmpty();  // modifiers are always ordered
+    assertThat(CODEC.encode(URI.create("input-device:rc1:KEY:0073:pressed"))).isEmpty();  // known codes always use their name
+    assertThat(CODEC.encode(URI.create("input-device:rc1:0002:1:3"))).isEmpty();
+    assertThat(CODEC.encode(URI.create("other:rc1:KEY:VOLUMEUP:pressed"))).isEmpty();
+  }
+
+  @Test
+  void shouldProduceSameInputsAsUris() {
+    StringBuilder received = new StringBuilder();
+    InputDeviceConnector.EventHandler handler = new InputDeviceConnector.EventHandler(-1, new InputSink() {
+      @Override
+      public void accept(URI uri) {
+        received.append(uri).append(" ");
+      }
+    }, "rc1", "rc1");
+
+    handler.processEvent((short)1, (short)29, 1);  // left control
+    handler.processEvent((short)0, (short)0, 0);
+    handler.processEvent((short)4, (short)4, 0x1e);
+    handler.processEvent((short)1, (short)115, 0);
+    handler.processEvent((short)0, (short)0, 0);
+
+    assertThat(received.toString().trim()).isEqualTo(
+      "input-device:rc1:KEY:LEFTCTRL:pressed:control "
+        + "input-device:rc1:0004:0004:0000001e "
+        + "input-device:rc1:KEY:VOLUMEUP:short-pressed:control "
+        + "input-device:rc1:KEY:VOLUMEUP:released:control"
+    );
+  }
+
+  @Test
+  void shouldNotAllocateWhenProcessingEvents() {
+    LongTable<String> mappings = LongTable.of(Map.of(
+      CODEC.encode(URI.create("input-device:rc1:KEY:VOLUMEUP:pressed"))[0], "volume-up",
+      CODEC.encode(URI.create("input-device:rc1:KEY:VOLUMEUP:held"))[0], "volume-up"
+    ));
+    int[] matches = new int[1];
+    InputDeviceConnector.EventHandler handler = new InputDeviceConnector.EventHandler(-1, new InputSink() {
+      @Override
+      public void accept(URI uri) {
+        throw new AssertionError("Unexpected URI: " + uri);
+      }
+
+      @Override
+      public void acceptKeys(long[] keys, int count, InputCodec codec) {
+        for(int i = 0; i < count; i++) {
+          if(mappings.get(keys[i]) != null) {
+            matches[0]++;
+          }
+        }
+      }
+    }, "rc1", "rc1");
+
+    com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+    processFrames(handler, 100_000);  // warm up
+
+    matches[0] = 0;
+
+    long before = threadBean.getCurrentThreadAllocatedBytes();
+
+    processFrames(handler, 100_000);
+
+    long allocated = threadBean.getCurrentThreadAllocatedBytes() - before;
+
+    assertThat(matches[0]).isEqualTo(100_000);
+    assertThat(allocated).isLessThan(1024);  // allows for the measurement itself
+  }
+
+  // Each frame holds a scan code and a key event, like a typical remote:
+  private static void processFrames(InputDeviceConnector.EventHandler handler, int count) {
+    for(int i = 0; i < count; i++) {
+      handler.processEvent((short)4, (short)4, 0x1e);
+      handler.processEvent((short)1, (short)115, i == 0 ? 1 : 2);
+      handler.processEvent((short)0, (short)0, 0);
+    }
+  }
+}
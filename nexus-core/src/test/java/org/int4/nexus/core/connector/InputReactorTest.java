@@ -0,0 +1,209 @@
+package org.int4.nexus.core.connector;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.InputSink;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputReactorTest {
+  private static final Linker LINKER = Linker.nativeLinker();
+  private static final MethodHandle PIPE = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("pipe").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.ADDRESS)
+  );
+  private static final MethodHandle WRITE = LINKER.downcallHandle(
+    LINKER.defaultLookup().find("write").get(),
+    FunctionDescriptor.of(ValueLayout.JAVA_LONG, ValueLayout.JAVA_INT, ValueLayout.ADDRESS, ValueLayout.JAVA_LONG)
+  );
+
+  private final InputReactor reactor = new InputReactor();
+  private final BlockingQueue<List<URI>> batches = new LinkedBlockingQueue<>();
+  private final InputSink sink = new InputSink() {
+    @Override
+    public void accept(URI uri) {
+      batches.add(List.of(uri));
+    }
+
+    @Override
+    public void acceptAll(List<URI> inputs) {
+      batches.add(List.copyOf(inputs));
+    }
+  };
+
+  @Test
+  void shouldDeliverFramesOfAllDevices() throws Throwable {
+    int[] rc1 = pipe();
+    int[] rc2 = pipe();
+
+    reactor.register(new InputDeviceConnector.EventHandler(rc1[0], sink, "rc1", "rc1"));
+    reactor.register(new InputDeviceConnector.EventHandler(rc2[0], sink, "rc2", "rc2"));
+
+    write(rc1[1], new short[][] {{4, 4, 0x1e}, {1, 115, 1}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(
+      URI.create("input-device:rc1:0004:0004:0000001e"),
+      URI.create("input-device:rc1:KEY:VOLUMEUP:pressed")
+    );
+
+    write(rc2[1], new short[][] {{2, 0, 3}, {2, 1, -2}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(
+      URI.create("input-device:rc2:0002:0000:00000003"),
+      URI.create("input-device:rc2:0002:0001:fffffffe")
+    );
+  }
+
+  @Test
+  void shouldSendLongPressForDeviceInReactor() throws Throwable {
+    int[] rc1 = pipe();
+
+    reactor.register(new InputDeviceConnector.EventHandler(rc1[0], sink, "rc1", "rc1"));
+
+    write(rc1[1], new short[][] {{1, 115, 1}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(URI.create("input-device:rc1:KEY:VOLUMEUP:pressed"));
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(URI.create("input-device:rc1:KEY:VOLUMEUP:long-pressed"));
+
+    write(rc1[1], new short[][] {{1, 115, 0}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(URI.create("input-device:rc1:KEY:VOLUMEUP:released"));
+  }
+
+  @Test
+  void shouldRemoveDeviceAtEndOfStream() throws Throwable {
+    int[] rc1 = pipe();
+    int[] rc2 = pipe();
+
+    reactor.register(new InputDeviceConnector.EventHandler(rc1[0], sink, "rc1", "rc1"));
+    reactor.register(new InputDeviceConnector.EventHandler(rc2[0], sink, "rc2", "rc2"));
+
+    awaitDeviceCount(2);
+
+    InputDeviceConnector.closeDevice(rc1[1]);  // writer closes, reader sees end of stream
+
+    awaitDeviceCount(1);
+
+    write(rc2[1], new short[][] {{1, 115, 1}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(URI.create("input-device:rc2:KEY:VOLUMEUP:pressed"));
+  }
+
+  @Test
+  void shouldOnlyRemoveDeviceWhichFailed() throws Throwable {
+    int[] rc1 = pipe();
+    int[] rc2 = pipe();
+    InputSink failingSink = new InputSink() {
+      @Override
+      public void accept(URI uri) {
+        throw new IllegalStateException("sink failed");
+      }
+
+      @Override
+      public void acceptAll(List<URI> inputs) {
+        throw new IllegalStateException("sink failed");
+      }
+    };
+
+    reactor.register(new InputDeviceConnector.EventHandler(rc1[0], failingSink, "rc1", "rc1"));
+    reactor.register(new InputDeviceConnector.EventHandler(rc2[0], sink, "rc2", "rc2"));
+
+    awaitDeviceCount(2);
+
+    write(rc1[1], new short[][] {{1, 115, 1}, {0, 0, 0}});
+
+    awaitDeviceCount(1);
+
+    write(rc2[1], new short[][] {{1, 115, 1}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(URI.create("input-device:rc2:KEY:VOLUMEUP:pressed"));
+  }
+
+  @Test
+  void shouldStopDeliveringEventsWhenUnregistered() throws Throwable {
+    int[] rc1 = pipe();
+    InputDeviceConnector.EventHandler handler = new InputDeviceConnector.EventHandler(rc1[0], sink, "rc1", "rc1");
+
+    reactor.register(handler);
+    awaitDeviceCount(1);
+    reactor.unregister(handler);
+    awaitDeviceCount(0);
+
+    assertThat(send(rc1[1], new short[][] {{1, 115, 1}, {0, 0, 0}})).isEqualTo(-1L);  // read end was closed
+    assertThat(batches).isEmpty();
+  }
+
+  @Test
+  void shouldNotCloseDeviceWhichReusedHandleOfRemovedDevice() throws Throwable {
+    int[] rc1 = pipe();
+    InputDeviceConnector.EventHandler handler = new InputDeviceConnector.EventHandler(rc1[0], sink, "rc1", "rc1");
+
+    reactor.register(handler);
+    awaitDeviceCount(1);
+
+    InputDeviceConnector.closeDevice(rc1[1]);  // reader sees end of stream, and closes the handle
+
+    awaitDeviceCount(0);
+
+    int[] rc2 = pipe();  // likely gets the same handle numbers
+
+    reactor.register(new InputDeviceConnector.EventHandler(rc2[0], sink, "rc2", "rc2"));
+    reactor.unregister(handler);
+    reactor.register(new InputDeviceConnector.EventHandler(pipe()[0], sink, "rc3", "rc3"));  // runs after the unregister
+
+    awaitDeviceCount(2);
+
+    write(rc2[1], new short[][] {{1, 115, 1}, {0, 0, 0}});
+
+    assertThat(batches.poll(5, TimeUnit.SECONDS)).containsExactly(URI.create("input-device:rc2:KEY:VOLUMEUP:pressed"));
+  }
+
+  private void awaitDeviceCount(int count) throws InterruptedException {
+    for(int i = 0; i < 500 && reactor.deviceCount() != count; i++) {
+      Thread.sleep(10);
+    }
+
+    assertThat(reactor.deviceCount()).isEqualTo(count);
+  }
+
+  private static int[] pipe() throws Throwable {
+    try(Arena arena = Arena.ofConfined()) {
+      MemorySegment fds = arena.allocate(ValueLayout.JAVA_INT, 2);
+
+      assertThat((int)PIPE.invoke(fds)).isEqualTo(0);
+
+      return new int[] {fds.getAtIndex(ValueLayout.JAVA_INT, 0), fds.getAtIndex(ValueLayout.JAVA_INT, 1)};
+    }
+  }
+
+  private static void write(int fd, short[][] events) throws Throwable {
+    assertThat(send(fd, events)).isEqualTo((long)events.length * InputDeviceConnector.INPUT_EVENT_SIZE);
+  }
+
+  private static long send(int fd, short[][] events) throws Throwable {
+    try(Arena arena = Arena.ofConfined()) {
+      MemorySegment segment = arena.allocate(events.length * InputDeviceConnector.INPUT_EVENT_SIZE);
+
+      for(int i = 0; i < events.length; i++) {
+        long offset = i * InputDeviceConnector.INPUT_EVENT_SIZE;
+
+        segment.set(ValueLayout.JAVA_SHORT, offset + 16, events[i][0]);
+        segment.set(ValueLayout.JAVA_SHORT, offset + 18, events[i][1]);
+        segment.set(ValueLayout.JAVA_INT, offset + 20, events[i][2]);
+      }
+
+      return (long)WRITE.invoke(fd, segment, segment.byteSize());
+    }
+  }
+}
@@ -0,0 +1,53 @@
+package org.int4.nexus.core.connector;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.int4.nexus.core.api.Connection;
+import org.int4.nexus.core.journal.InputJournal;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JournalReplayConnectorTest {
+  private static final URI PRESSED = URI.create("input-device:rc1:KEY:VOLUMEUP:pressed");
+  private static final URI RELEASED = URI.create("input-device:rc1:KEY:VOLUMEUP:released");
+  private static final URI OTHER = URI.create("hci:001f:41000000:pressed");
+
+  @Test
+  void shouldOnlyReplayInputsOfConfiguredConnector() throws Exception {
+    Path path = Files.createTempDirectory("journal").resolve("input.journal");
+
+    try(InputJournal journal = InputJournal.create(path)) {
+      journal.append("rc1", List.of(PRESSED));
+      journal.append("bt", List.of(OTHER));
+      journal.append("rc1", List.of(RELEASED));
+    }
+
+    BlockingQueue<URI> received = new LinkedBlockingQueue<>();
+    Connection connection = new JournalReplayConnector().connect(received::add, Map.of("file", path.toString(), "connector", "rc1", "speed", "fast"));
+    List<URI> inputs = new ArrayList<>();
+
+    try {
+      while(!inputs.contains(RELEASED)) {  // the last entry, so all others were replayed before it
+        URI input = received.poll(5, TimeUnit.SECONDS);
+
+        assertThat(input).isNotNull();
+
+        inputs.add(input);
+      }
+    }
+    finally {
+      connection.close();
+    }
+
+    assertThat(inputs).containsExactly(PRESSED, RELEASED);
+  }
+}
@@ -0,0 +1,177 @@
+package org.int4.nexus.core.handler;
+
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5Publish;
+import com.hivemq.client.mqtt.mqtt5.message.publish.Mqtt5PublishResult;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MqttConnectionManagerTest {
+  private final List<FakeClient> clients = new ArrayList<>();
+  private final MqttConnectionManager manager = new MqttConnectionManager((identifier, host, port, listener) -> {
+    FakeClient client = new FakeClient(listener);
+
+    clients.add(client);
+
+    return client;
+  });
+
+  @Test
+  void shouldShareConnectionToSameBroker() {
+    MqttConnectionManager.Connection first = manager.acquire("broker", 1883);
+    MqttConnectionManager.Connection second = manager.acquire("broker", 1883);
+    MqttConnectionManager.Connection other = manager.acquire("broker", 1884);
+
+    assertThat(first).isEqualTo(second);
+    assertThat(first == other).isFalse();
+    assertThat(clients).hasSize(2);
+  }
+
+  @Test
+  void shouldDisconnectOnlyWhenReleasedByAllUsers() {
+    MqttConnectionManager.Connection first = manager.acquire("broker", 1883);
+    MqttConnectionManager.Connection second = manager.acquire("broker", 1883);
+
+    first.release();
+
+    assertThat(clients.get(0).disconnected).isFalse();
+
+    second.release();
+
+    assertThat(clients.get(0).disconnected).isTrue();
+    assertThat(clients.get(0).listener.disconnected(new IOException("closed"))).isEqualTo(-1L);  // no longer reconnects
+
+    // Acquiring it again connects again:
+    MqttConnectionManager.Connection third = manager.acquire("broker", 1883);
+
+    assertThat(third == first).isFalse();
+    assertThat(clients).hasSize(2);
+  }
+
+  @Test
+  void shouldBackOffExponentiallyUntilConnected() {
+    manager.acquire("backoff-broker", 1883);
+
+    MqttConnectionManager.Listener listener = clients.get(0).listener;
+    List<Long> delays = new ArrayList<>();
+
+    for(int i = 0; i < 9; i++) {
+      delays.add(TimeUnit.NANOSECONDS.toMillis(listener.disconnected(new IOException("connection refused"))));
+    }
+
+    assertThat(delays).containsExactly(500L, 1000L, 2000L, 4000L, 8000L, 16000L, 32000L, 60000L, 60000L);
+
+    listener.connected();
+
+    assertThat(TimeUnit.NANOSECONDS.toMillis(listener.disconnected(new IOException("connection lost")))).isEqualTo(500L);
+  }
+
+  @Test
+  void shouldRenewSubscriptionsWhenReconnected() {
+    MqttConnectionManager.Connection connection = manager.acquire("broker", 1883);
+    FakeClient client = clients.get(0);
+
+    connection.subscribe("stat/+/RESULT", publish -> {});
+
+    assertThat(client.subscribed).hasSize(0);  // not connected yet
+
+    client.connect(true);
+
+    assertThat(client.subscribed).containsExactly("stat/+/RESULT");
+
+    connection.subscribe("tele/+/STATE", publish -> {});  // subscribed right away while connected
+
+    assertThat(client.subscribed).containsExactly("stat/+/RESULT", "tele/+/STATE");
+
+    client.connect(false);
+    client.subscribed.clear();
+    client.connect(true);
+
+    assertThat(client.subscribed).contains("stat/+/RESULT");
+    assertThat(client.subscribed).contains("tele/+/STATE");
+    assertThat(client.subscribed).hasSize(2);
+  }
+
+  @Test
+  void shouldOnlyUnsubscribeWhenLastListenerIsRemoved() {
+    MqttConnectionManager.Connection connection = manager.acquire("broker", 1883);
+    FakeClient client = clients.get(0);
+    Runnable first = connection.subscribe("stat/+/RESULT", publish -> {});
+    Runnable second = connection.subscribe("stat/+/RESULT", publish -> {});
+
+    first.run();
+
+    assertThat(client.unsubscribed).hasSize(0);
+
+    second.run();
+
+    assertThat(client.unsubscribed).containsExactly("stat/+/RESULT");
+  }
+
+  private static class FakeClient implements MqttConnectionManager.Client {
+    final MqttConnectionManager.Listener listener;
+    final List<String> subscribed = new ArrayList<>();
+    final List<String> unsubscribed = new ArrayList<>();
+
+    volatile boolean connected;
+    volatile boolean disconnected;
+
+    FakeClient(MqttConnectionManager.Listener listener) {
+      this.listener = listener;
+    }
+
+    void connect(boolean connected) {
+      this.connected = connected;
+
+      if(connected) {
+        listener.connected();
+      }
+      else {
+        listener.disconnected(new IOException("connection lost"));
+      }
+    }
+
+    @Override
+    public CompletableFuture<Void> connect() {
+      return new CompletableFuture<>();  // connects when the test says so
+    }
+
+    @Override
+    public CompletableFuture<Void> disconnect() {
+      disconnected = true;
+
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Mqtt5PublishResult> publish(Mqtt5Publish publish) {
+      return new CompletableFuture<>();
+    }
+
+    @Override
+    public CompletableFuture<Void> subscribe(String topicFilter) {
+      subscribed.add(topicFilter);
+
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public CompletableFuture<Void> unsubscribe(String topicFilter) {
+      unsubscribed.add(topicFilter);
+
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public boolean isConnected() {
+      return connected;
+    }
+  }
+}
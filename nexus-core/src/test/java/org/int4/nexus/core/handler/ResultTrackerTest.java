@@ -0,0 +1,91 @@
+package org.int4.nexus.core.handler;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultTrackerTest {
+  private final ResultTracker tracker = new ResultTracker(200);
+
+  @Test
+  void shouldOnlyCompleteMessageWithMatchingCorrelationData() {
+    CompletableFuture<Void> first = tracker.track("POWER", correlationData(1), CompletableFuture.completedFuture(null));
+    CompletableFuture<Void> second = tracker.track("POWER", correlationData(2), CompletableFuture.completedFuture(null));
+
+    assertThat(tracker.complete(Optional.of(correlationData(2)), "{\"POWER\":\"ON\"}")).isTrue();
+
+    assertThat(first.isDone()).isFalse();
+    assertThat(second.isDone()).isTrue();
+  }
+
+  @Test
+  void shouldIgnoreResultsWithCorrelationDataWhichMatchesNoMessage() {
+    CompletableFuture<Void> future = tracker.track("POWER", correlationData(1), CompletableFuture.completedFuture(null));
+
+    assertThat(tracker.complete(Optional.of(correlationData(99)), "{\"POWER\":\"ON\"}")).isFalse();  // late result of another message
+    assertThat(future.isDone()).isFalse();
+  }
+
+  @Test
+  void shouldCompleteMessageWhosePayloadResultContainsWithoutCorrelationData() {
+    CompletableFuture<Void> first = tracker.track("POWER", correlationData(1), CompletableFuture.completedFuture(null));
+    CompletableFuture<Void> second = tracker.track("Dimmer", correlationData(2), CompletableFuture.completedFuture(null));
+
+    assertThat(tracker.complete(Optional.empty(), "{\"Dimmer\":50}")).isTrue();
+
+    assertThat(first.isDone()).isFalse();
+    assertThat(second.isDone()).isTrue();
+  }
+
+  @Test
+  void shouldCompleteOldestMessageWithResultWithoutCorrelationDataOrPayload() {
+    CompletableFuture<Void> first = tracker.track("{\"Protocol\":\"NEC\",\"Data\":\"0x20DF10EF\"}", correlationData(1), CompletableFuture.completedFuture(null));
+    CompletableFuture<Void> second = tracker.track("{\"Protocol\":\"NEC\",\"Data\":\"0x20DF40BF\"}", correlationData(2), CompletableFuture.completedFuture(null));
+
+    assertThat(tracker.complete(Optional.empty(), "{\"IRSend\":\"Done\"}")).isTrue();  // IR blasters don't repeat the code
+
+    assertThat(first.isDone()).isTrue();
+    assertThat(second.isDone()).isFalse();
+
+    assertThat(tracker.complete(Optional.empty(), "{\"IRSend\":\"Done\"}")).isTrue();
+    assertThat(second.isDone()).isTrue();
+    assertThat(tracker.complete(Optional.empty(), "{\"IRSend\":\"Done\"}")).isFalse();  // nothing pending
+  }
+
+  @Test
+  void shouldOnlyStartMaximumDelayOnceMessageWasPublished() throws Exception {
+    CompletableFuture<Void> published = new CompletableFuture<>();
+    CompletableFuture<Void> future = tracker.track("POWER", correlationData(1), published);
+
+    Thread.sleep(300);  // still connecting to the broker
+
+    assertThat(future.isDone()).isFalse();
+
+    long start = System.nanoTime();
+
+    published.complete(null);
+    future.get(5, TimeUnit.SECONDS);
+
+    assertThat(System.nanoTime() - start).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(150));
+    assertThat(tracker.complete(Optional.of(correlationData(1)), "POWER")).isFalse();  // no longer pending
+  }
+
+  @Test
+  void shouldFailWhenMessageCouldNotBePublished() {
+    CompletableFuture<Void> published = new CompletableFuture<>();
+    CompletableFuture<Void> future = tracker.track("POWER", correlationData(1), published);
+
+    published.completeExceptionally(new IllegalStateException("disconnected"));
+
+    assertThat(future.isCompletedExceptionally()).isTrue();
+  }
+
+  private static ByteBuffer correlationData(long id) {
+    return ByteBuffer.allocate(Long.BYTES).putLong(0, id);
+  }
+}
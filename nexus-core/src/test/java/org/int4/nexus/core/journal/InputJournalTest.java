@@ -0,0 +1,82 @@
+package org.int4.nexus.core.journal;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.int4.nexus.core.api.InputSink;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InputJournalTest {
+  private static final URI PRESSED = URI.create("input-device:rc1:KEY:VOLUMEUP:pressed");
+  private static final URI RELEASED = URI.create("input-device:rc1:KEY:VOLUMEUP:released");
+
+  private final Path path;
+
+  InputJournalTest() throws IOException {
+    this.path = Files.createTempDirectory("journal").resolve("input.journal");
+  }
+
+  @Test
+  void shouldRecordInputsPassingThroughSink() throws IOException {
+    List<URI> received = new ArrayList<>();
+
+    try(InputJournal journal = InputJournal.create(path)) {
+      InputSink sink = journal.wrap("rc1", received::add);
+
+      sink.accept(PRESSED);
+      sink.acceptAll(List.of(PRESSED, RELEASED));
+    }
+
+    assertThat(received).containsExactly(PRESSED, PRESSED, RELEASED);
+
+    try(JournalReader reader = JournalReader.open(path)) {
+      JournalReader.Entry first = reader.next();
+      JournalReader.Entry second = reader.next();
+
+      assertThat(first.connectorId()).isEqualTo("rc1");
+      assertThat(first.inputs()).containsExactly(PRESSED);
+      assertThat(second.inputs()).containsExactly(PRESSED, RELEASED);
+      assertThat(second.nanos() >= first.nanos()).isTrue();
+      assertThat(reader.next()).isNull();
+    }
+  }
+
+  @Test
+  void shouldReadJournalWhichWasNotClosed() throws IOException {
+    InputJournal journal = InputJournal.create(path);
+
+    journal.append("rc1", List.of(PRESSED));
+
+    try(JournalReader reader = JournalReader.open(path)) {
+      assertThat(reader.next().inputs()).containsExactly(PRESSED);
+      assertThat(reader.next()).isNull();  // stops at the unused, zeroed space
+    }
+
+    journal.close();
+  }
+
+  @Test
+  void shouldContinueInNextRegionWhenRegionIsFull() throws IOException {
+    int count = 30_000;  // about 2.5 MB, so spans several regions
+
+    try(InputJournal journal = InputJournal.create(path)) {
+      for(int i = 0; i < count; i++) {
+        journal.append("rc" + i, List.of(PRESSED, RELEASED));
+      }
+    }
+
+    try(JournalReader reader = JournalReader.open(path)) {
+      for(int i = 0; i < count; i++) {
+        assertThat(reader.next().connectorId()).isEqualTo("rc" + i);
+      }
+
+      assertThat(reader.next()).isNull();
+    }
+  }
+}
@@ -0,0 +1,111 @@
+package org.int4.nexus.core.state;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class StateFileTest {
+  private static final RuntimeState WATCH_TV = new RuntimeState(
+    "watch-tv",
+    Set.of("Yamaha", "Arris", "Epson-Projector"),
+    Set.of(),
+    Map.of("Yamaha", Map.of("input", "SET_OUTPUT_HDMI_2"))
+  );
+  private static final RuntimeState LISTEN_MUSIC = new RuntimeState(
+    "listen-music",
+    Set.of("Yamaha"),
+    Set.of("Epson-Projector"),  // its deactivation was interrupted
+    Map.of("Yamaha", Map.of("input", "SET_OUTPUT_HDMI_1"))
+  );
+
+  private final Path path;
+
+  StateFileTest() throws IOException {
+    this.path = Files.createTempDirectory("state").resolve("nexus.state");
+  }
+
+  @Test
+  void shouldRestoreLastWrittenState() throws IOException {
+    try(StateFile stateFile = StateFile.open(path)) {
+      assertThat(stateFile.read()).isEqualTo(RuntimeState.EMPTY);
+
+      stateFile.write(WATCH_TV);
+      stateFile.write(LISTEN_MUSIC);
+    }
+
+    try(StateFile stateFile = StateFile.open(path)) {
+      assertThat(stateFile.read()).isEqualTo(LISTEN_MUSIC);
+    }
+  }
+
+  @Test
+  void shouldRestorePreviousStateWhenLastWriteWasInterrupted() throws IOException {
+    try(StateFile stateFile = StateFile.open(path)) {
+      stateFile.write(WATCH_TV);  // sequence 1, in slot 1
+      stateFile.write(LISTEN_MUSIC);  // sequence 2, in slot 0
+    }
+
+    // Damage the state in slot 0, as if it was only partially written:
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] {0x55}), StateFile.HEADER_SIZE + StateFile.SLOT_HEADER_SIZE + 3);
+    }
+
+    try(StateFile stateFile = StateFile.open(path)) {
+      assertThat(stateFile.read()).isEqualTo(WATCH_TV);
+    }
+  }
+
+  @Test
+  void shouldRestoreStateWrittenWithoutUnsettledDevices() throws IOException {
+    try(StateFile stateFile = StateFile.open(path)) {
+      stateFile.write(WATCH_TV);
+    }
+
+    // Drop the trailing count of unsettled devices, like a state written before it was added:
+    try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(StateFile.SLOT_HEADER_SIZE);
+      long slot = StateFile.HEADER_SIZE + StateFile.SLOT_SIZE;  // sequence 1, in slot 1
+
+      channel.read(header, slot);
+
+      int length = header.getInt(Long.BYTES) - Short.BYTES;
+      ByteBuffer state = ByteBuffer.allocate(length);
+
+      channel.read(state, slot + StateFile.SLOT_HEADER_SIZE);
+
+      CRC32C crc = new CRC32C();
+
+      header.putInt(Long.BYTES, length);
+      crc.update(header.array(), 0, Long.BYTES + Integer.BYTES);
+      crc.update(state.array());
+      header.putInt(Long.BYTES + Integer.BYTES, (int)crc.getValue());
+      channel.write(header.flip(), slot);
+    }
+
+    try(StateFile stateFile = StateFile.open(path)) {
+      assertThat(stateFile.read()).isEqualTo(WATCH_TV);
+    }
+  }
+
+  @Test
+  void shouldRejectFileWhichIsNotAStateFile() throws IOException {
+    Files.writeString(path, "activities: []");
+
+    assertThatThrownBy(() -> StateFile.open(path))
+      .isInstanceOf(IOException.class)
+      .hasMessageContaining("Not a state file");
+
+    assertThat(Files.readString(path)).isEqualTo("activities: []");
+  }
+}
@@ -0,0 +1,88 @@
+package org.int4.nexus.core.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncLogHandlerTest {
+
+  @Test
+  void shouldWriteRecordsInOrderWithNameOfLoggingThread() throws InterruptedException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AsyncLogHandler handler = new AsyncLogHandler(out, StandardCharsets.UTF_8, new MyLoggingFormatter(), 16, AsyncLogHandler.OverflowPolicy.BLOCK);
+
+    Thread thread = Thread.ofPlatform().name("input-thread").start(() -> {
+      for(int i = 0; i < 100; i++) {
+        handler.publish(record("message " + i));
+      }
+    });
+
+    thread.join();
+    handler.close();
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+    assertThat(lines.length).isEqualTo(100);
+    assertThat(lines[0]).contains("input-thread", "message 0");
+    assertThat(lines[99]).contains("input-thread", "message 99");
+  }
+
+  @Test
+  void shouldDropRecordsWhenFullAndReportThem() throws InterruptedException {
+    CountDownLatch writing = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    AsyncLogHandler handler = new AsyncLogHandler(new OutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        write(new byte[] {(byte)b}, 0, 1);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) {
+        writing.countDown();
+
+        try {
+          release.await();
+        }
+        catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+
+        out.write(b, off, len);
+      }
+    }, StandardCharsets.UTF_8, new MyLoggingFormatter(), 1, AsyncLogHandler.OverflowPolicy.DROP);
+
+    handler.publish(record("first"));
+    writing.await();  // writer is now stuck writing the first record
+
+    handler.publish(record("second"));  // fills the buffer
+    handler.publish(record("third"));  // dropped
+
+    release.countDown();
+    handler.close();
+
+    String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+    assertThat(lines.length).isEqualTo(3);
+    assertThat(lines[0]).contains("first");
+    assertThat(lines[1]).isEqualTo("[1 log records were dropped]");
+    assertThat(lines[2]).contains("second");
+  }
+
+  private static LogRecord record(String message) {
+    LogRecord record = new LogRecord(Level.INFO, message);
+
+    record.setLoggerName(AsyncLogHandlerTest.class.getName());
+
+    return record;
+  }
+}
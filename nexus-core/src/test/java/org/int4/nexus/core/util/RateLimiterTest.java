@@ -0,0 +1,47 @@
+package org.int4.nexus.core.util;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class RateLimiterTest {
+
+  @Test
+  void shouldAllowBurstAndThenSpaceOutActions() {
+    RateLimiter limiter = new RateLimiter("test-spacing", 20, 2);
+
+    assertThat(limiter.reserve(Long.MAX_VALUE)).isEqualTo(0L);
+    assertThat(limiter.reserve(Long.MAX_VALUE)).isEqualTo(0L);
+
+    // Reserved tokens accumulate, so each queued action waits about 50 ms longer:
+    long third = limiter.reserve(Long.MAX_VALUE);
+    long fourth = limiter.reserve(Long.MAX_VALUE);
+
+    assertThat(third).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(25));
+    assertThat(fourth - third).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(25));
+
+    assertThat(Metrics.snapshot().get("rate-limit.test-spacing.limited")).isEqualTo(2L);
+    assertThat(Metrics.snapshot().get("rate-limit.test-spacing.shed")).isEqualTo(0L);
+  }
+
+  @Test
+  void shouldShedActionsWhichWouldWaitTooLong() {
+    RateLimiter limiter = new RateLimiter("test-shedding", 1, 1);
+
+    assertThat(limiter.reserve(0)).isEqualTo(0L);
+    assertThat(limiter.reserve(TimeUnit.MILLISECONDS.toNanos(100))).isEqualTo(-1L);
+    assertThat(limiter.reserve(TimeUnit.MILLISECONDS.toNanos(100))).isEqualTo(-1L);
+
+    assertThat(Metrics.snapshot().get("rate-limit.test-shedding.shed")).isEqualTo(2L);
+    assertThat(Metrics.snapshot().get("rate-limit.test-shedding.limited")).isEqualTo(0L);
+  }
+
+  @Test
+  void shouldRejectInvalidLimits() {
+    assertThatThrownBy(() -> new RateLimiter("test-invalid", 0, 1)).isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(() -> new RateLimiter("test-invalid", 1, 0)).isInstanceOf(IllegalArgumentException.class);
+  }
+}